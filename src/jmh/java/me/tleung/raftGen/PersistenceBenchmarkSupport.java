@@ -0,0 +1,77 @@
+package me.tleung.raftGen;
+
+import org.bukkit.Location;
+import org.bukkit.World;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Map;
+import java.util.UUID;
+import java.util.function.Function;
+import java.util.logging.Logger;
+
+/**
+ * 让基准测试不启动服务器调用数据保存与读取的路径
+ * save 对应 DataManager.saveAllData 在 I/O 线程执行的部分（捕获快照 + 写入后端），
+ * load 对应 DataManager.loadAllData（读取后端 + 转换成 RaftData）
+ */
+public final class PersistenceBenchmarkSupport {
+
+    private final RaftStorage storage;
+    private final File directory;
+
+    private PersistenceBenchmarkSupport(RaftStorage storage, File directory) {
+        this.storage = storage;
+        this.directory = directory;
+    }
+
+    /**
+     * @param backend 与配置 storage.backend 相同：binary、yaml 或 sqlite
+     */
+    public static PersistenceBenchmarkSupport open(String backend, File directory) {
+        Logger logger = Logger.getLogger("RaftGen-Benchmark");
+        switch (backend) {
+            case "binary":
+                return new PersistenceBenchmarkSupport(new BinaryRaftStorage(directory, 0, logger), directory);
+            case "yaml":
+                return new PersistenceBenchmarkSupport(new YamlRaftStorage(directory, 0, logger), directory);
+            case "sqlite":
+                if (!SqliteRaftStorage.isDriverAvailable()) {
+                    throw new IllegalStateException("找不到 SQLite 驱动: " + SqliteRaftStorage.DRIVER);
+                }
+                return new PersistenceBenchmarkSupport(new SqliteRaftStorage(directory, logger), directory);
+            default:
+                throw new IllegalArgumentException("未知的存储后端: " + backend);
+        }
+    }
+
+    /**
+     * @param teamData 玩家ID -> 队长ID
+     */
+    public void saveAll(Map<UUID, Location> playerRafts, Map<UUID, String> raftNames, Map<UUID, UUID> teamData)
+            throws IOException {
+        storage.apply(DataManager.DataSnapshot.capture(playerRafts, raftNames, teamData));
+    }
+
+    public DataManager.RaftData loadAll(Function<String, World> worldLookup) throws IOException {
+        return DataManager.toRaftData(storage.load(), worldLookup);
+    }
+
+    /**
+     * 数据目录中所有文件的大小，即最近一次保存写入的字节数
+     */
+    public long bytesOnDisk() {
+        long total = 0;
+        File[] files = directory.listFiles(File::isFile);
+        if (files != null) {
+            for (File file : files) {
+                total += file.length();
+            }
+        }
+        return total;
+    }
+
+    public void close() {
+        storage.close();
+    }
+}
\ No newline at end of file
@@ -0,0 +1,156 @@
+package me.tleung.raftGen.benchmark;
+
+import org.bukkit.Material;
+import org.bukkit.NamespacedKey;
+import org.bukkit.World;
+import org.bukkit.block.Biome;
+import org.bukkit.block.data.BlockData;
+import org.bukkit.generator.WorldInfo;
+
+import java.lang.reflect.Proxy;
+import java.util.EnumMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * 基准测试使用的世界信息
+ */
+public final class BenchmarkWorlds {
+
+    public static final long SEED = 8675309L;
+    public static final int MIN_HEIGHT = -64;
+    public static final int MAX_HEIGHT = 320;
+
+    /**
+     * 区块数据返回的生物群系，Biome 常量需要服务器注册表，这里用代理代替
+     */
+    public static final Biome OCEAN = (Biome) Proxy.newProxyInstance(Biome.class.getClassLoader(), new Class<?>[]{Biome.class}, (proxy, method, args) -> {
+        switch (method.getName()) {
+            case "getKey":
+            case "key":
+                return NamespacedKey.minecraft("ocean");
+            case "name":
+                return "OCEAN";
+            case "hashCode":
+                return System.identityHashCode(proxy);
+            case "equals":
+                return proxy == args[0];
+            case "toString":
+                return "Biome[ocean]";
+            default:
+                return neutralValue(method.getReturnType());
+        }
+    });
+
+    private static final Map<Material, BlockData> BLOCK_DATA = new EnumMap<>(Material.class);
+
+    private BenchmarkWorlds() {
+    }
+
+    /**
+     * 只带材质的方块数据，Bukkit.createBlockData 需要服务器；同一材质共用一个实例
+     */
+    public static synchronized BlockData blockData(Material material) {
+        return BLOCK_DATA.computeIfAbsent(material, type -> (BlockData) Proxy.newProxyInstance(
+                BlockData.class.getClassLoader(), new Class<?>[]{BlockData.class}, (proxy, method, args) -> {
+                    switch (method.getName()) {
+                        case "getMaterial":
+                            return type;
+                        case "getAsString":
+                            return "minecraft:" + type.name().toLowerCase(Locale.ROOT);
+                        case "clone":
+                            return proxy;
+                        case "hashCode":
+                            return type.hashCode();
+                        case "equals":
+                            return proxy == args[0];
+                        case "toString":
+                            return "BlockData[" + type + "]";
+                        default:
+                            return neutralValue(method.getReturnType());
+                    }
+                }));
+    }
+
+    // 代理中未实现的方法返回中性值，生成器路径调用到它们时不会中断基准测试
+    private static Object neutralValue(Class<?> type) {
+        if (type == boolean.class) {
+            return false;
+        }
+        if (type == char.class) {
+            return '\0';
+        }
+        if (type == byte.class) {
+            return (byte) 0;
+        }
+        if (type == short.class) {
+            return (short) 0;
+        }
+        if (type == int.class) {
+            return 0;
+        }
+        if (type == long.class) {
+            return 0L;
+        }
+        if (type == float.class) {
+            return 0.0f;
+        }
+        if (type == double.class) {
+            return 0.0;
+        }
+        return null;
+    }
+
+    /**
+     * 生成器只读取种子、UID 与高度范围，其余方法返回默认值；
+     * 使用动态代理，避免随 API 版本变化的接口方法导致编译失败
+     */
+    public static WorldInfo create(long seed) {
+        UUID uid = new UUID(seed, seed);
+        return (WorldInfo) Proxy.newProxyInstance(WorldInfo.class.getClassLoader(), new Class<?>[]{WorldInfo.class}, (proxy, method, args) -> {
+            switch (method.getName()) {
+                case "getSeed":
+                    return seed;
+                case "getUID":
+                    return uid;
+                case "getName":
+                    return "raft_benchmark";
+                case "getEnvironment":
+                    return World.Environment.NORMAL;
+                case "getMinHeight":
+                    return MIN_HEIGHT;
+                case "getMaxHeight":
+                    return MAX_HEIGHT;
+                case "hashCode":
+                    return uid.hashCode();
+                case "equals":
+                    return proxy == args[0];
+                case "toString":
+                    return "WorldInfo[raft_benchmark]";
+                default:
+                    return neutralValue(method.getReturnType());
+            }
+        });
+    }
+
+    /**
+     * 持久化基准测试中 Location 使用的世界，只需要名称，其余方法返回默认值
+     */
+    public static World createWorld(String name) {
+        return (World) Proxy.newProxyInstance(World.class.getClassLoader(), new Class<?>[]{World.class}, (proxy, method, args) -> {
+            switch (method.getName()) {
+                case "getName":
+                    return name;
+                case "hashCode":
+                    return name.hashCode();
+                case "equals":
+                    return proxy == args[0];
+                case "toString":
+                    return "World[" + name + "]";
+                default:
+                    return neutralValue(method.getReturnType());
+            }
+        });
+    }
+}
\ No newline at end of file
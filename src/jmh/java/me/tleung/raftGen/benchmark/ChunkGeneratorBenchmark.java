@@ -0,0 +1,148 @@
+package me.tleung.raftGen.benchmark;
+
+import me.tleung.raftGen.RaftChunkGenerator;
+import me.tleung.raftGen.generator.GeneratorSettings;
+import org.bukkit.generator.WorldInfo;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * RaftChunkGenerator 各生成阶段的耗时，结果以每列 (ns/column) 计
+ * 配合 -prof gc 查看分配速率
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@OperationsPerInvocation(ChunkGeneratorBenchmark.COLUMNS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Thread)
+public class ChunkGeneratorBenchmark {
+
+    static final int COLUMNS = 16 * 16;
+
+    // 每次调用换一个区块，覆盖区域缓存命中与未命中的真实比例
+    private static final int CHUNK_SPAN = 64;
+
+    private WorldInfo worldInfo;
+    private InMemoryChunkData chunkData;
+    private final Random random = new Random(0L);
+    private int chunkIndex;
+
+    /**
+     * 按采样模式创建的生成器，各个基准与 SurfaceState 共用同一组参数
+     */
+    @State(Scope.Thread)
+    public static class GeneratorState {
+        @Param({"interpolated", "exact"})
+        public String samplingMode;
+
+        RaftChunkGenerator generator;
+
+        @Setup(Level.Trial)
+        public void setUp() {
+            generator = createGenerator(samplingMode);
+        }
+    }
+
+    static RaftChunkGenerator createGenerator(String samplingMode) {
+        GeneratorSettings defaults = GeneratorSettings.defaults();
+        return new RaftChunkGenerator(GeneratorSettings.of("interpolated".equals(samplingMode),
+                defaults.getSamplingStep(), defaults.getRegionCacheSize()));
+    }
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        worldInfo = BenchmarkWorlds.create(BenchmarkWorlds.SEED);
+        chunkData = new InMemoryChunkData(BenchmarkWorlds.MIN_HEIGHT, BenchmarkWorlds.MAX_HEIGHT);
+    }
+
+    private int nextChunkX() {
+        chunkIndex = (chunkIndex + 1) % (CHUNK_SPAN * CHUNK_SPAN);
+        return chunkIndex % CHUNK_SPAN;
+    }
+
+    private int currentChunkZ() {
+        return chunkIndex / CHUNK_SPAN;
+    }
+
+    @Benchmark
+    public void generateNoise(GeneratorState state, Blackhole blackhole) {
+        int chunkX = nextChunkX();
+        int chunkZ = currentChunkZ();
+        chunkData.clear();
+        state.generator.generateNoise(worldInfo, random, chunkX, chunkZ, chunkData);
+        blackhole.consume(chunkData);
+    }
+
+    @Benchmark
+    public void generateBedrock(GeneratorState state, Blackhole blackhole) {
+        int chunkX = nextChunkX();
+        int chunkZ = currentChunkZ();
+        state.generator.generateBedrock(worldInfo, random, chunkX, chunkZ, chunkData);
+        blackhole.consume(chunkData);
+    }
+
+    @Benchmark
+    public void generateFullChunk(GeneratorState state, Blackhole blackhole) {
+        RaftChunkGenerator generator = state.generator;
+        int chunkX = nextChunkX();
+        int chunkZ = currentChunkZ();
+        chunkData.clear();
+        generator.generateNoise(worldInfo, random, chunkX, chunkZ, chunkData);
+        generator.generateSurface(worldInfo, random, chunkX, chunkZ, chunkData);
+        generator.generateBedrock(worldInfo, random, chunkX, chunkZ, chunkData);
+        blackhole.consume(chunkData);
+    }
+
+    /**
+     * 表面阶段单独计时，地形在每次调用前准备好；生成器取自 GeneratorState，使用相同的采样模式
+     */
+    @State(Scope.Thread)
+    public static class SurfaceState {
+        RaftChunkGenerator generator;
+        WorldInfo worldInfo;
+        InMemoryChunkData chunkData;
+        final Random random = new Random(0L);
+        int chunkX;
+        int chunkZ;
+        private int chunkIndex;
+
+        @Setup(Level.Trial)
+        public void setUp(GeneratorState generatorState) {
+            generator = generatorState.generator;
+            worldInfo = BenchmarkWorlds.create(BenchmarkWorlds.SEED);
+            chunkData = new InMemoryChunkData(BenchmarkWorlds.MIN_HEIGHT, BenchmarkWorlds.MAX_HEIGHT);
+        }
+
+        @Setup(Level.Invocation)
+        public void prepareTerrain() {
+            chunkIndex = (chunkIndex + 1) % (CHUNK_SPAN * CHUNK_SPAN);
+            chunkX = chunkIndex % CHUNK_SPAN;
+            chunkZ = chunkIndex / CHUNK_SPAN;
+            chunkData.clear();
+            generator.generateNoise(worldInfo, random, chunkX, chunkZ, chunkData);
+        }
+    }
+
+    @Benchmark
+    public void generateSurface(SurfaceState state, Blackhole blackhole) {
+        state.generator.generateSurface(state.worldInfo, state.random, state.chunkX, state.chunkZ, state.chunkData);
+        blackhole.consume(state.chunkData);
+    }
+}
\ No newline at end of file
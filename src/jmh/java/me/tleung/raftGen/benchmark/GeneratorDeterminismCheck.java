@@ -0,0 +1,120 @@
+package me.tleung.raftGen.benchmark;
+
+import me.tleung.raftGen.RaftChunkGenerator;
+import org.bukkit.generator.WorldInfo;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * RaftChunkGenerator.isParallelCapable 的依据：多个线程共用一个生成器并行生成区块，
+ * 结果必须与单线程按顺序生成的逐块相同
+ * 每个区块只生成一次（与服务器相同），并行时打乱顺序，使区域缓存和高度图缓存在不同的交错下被访问
+ *   mvn -Pjmh test-compile exec:exec -Djmh.main=me.tleung.raftGen.benchmark.GeneratorDeterminismCheck -Djmh.args="8 24 3"
+ * 参数依次为线程数、区块半径、轮数；有不一致的区块时以状态码 1 退出
+ */
+public final class GeneratorDeterminismCheck {
+
+    private GeneratorDeterminismCheck() {
+    }
+
+    public static void main(String[] args) throws Exception {
+        int threads = args.length > 0 ? Integer.parseInt(args[0]) : Math.max(4, Runtime.getRuntime().availableProcessors());
+        int radius = args.length > 1 ? Integer.parseInt(args[1]) : 24;
+        int rounds = args.length > 2 ? Integer.parseInt(args[2]) : 3;
+
+        List<long[]> chunks = new ArrayList<>();
+        for (int chunkX = -radius; chunkX <= radius; chunkX++) {
+            for (int chunkZ = -radius; chunkZ <= radius; chunkZ++) {
+                chunks.add(new long[]{chunkX, chunkZ});
+            }
+        }
+        WorldInfo worldInfo = BenchmarkWorlds.create(BenchmarkWorlds.SEED);
+
+        int mismatches = 0;
+        for (String samplingMode : new String[]{"interpolated", "exact"}) {
+            long[] expected = generateSequential(ChunkGeneratorBenchmark.createGenerator(samplingMode), worldInfo, chunks);
+
+            for (int round = 0; round < rounds; round++) {
+                // 每轮使用新的生成器，缓存从空开始被多个线程同时填充
+                long[] actual = generateParallel(ChunkGeneratorBenchmark.createGenerator(samplingMode), worldInfo, chunks,
+                        threads, new Random(round));
+                int roundMismatches = 0;
+                for (int i = 0; i < expected.length; i++) {
+                    if (expected[i] != actual[i]) {
+                        if (roundMismatches < 10) {
+                            System.out.println("[" + samplingMode + "] 区块 " + chunks.get(i)[0] + ", " + chunks.get(i)[1] + " 不一致");
+                        }
+                        roundMismatches++;
+                    }
+                }
+                System.out.println("[" + samplingMode + "] 第 " + (round + 1) + " 轮: " + chunks.size() + " 个区块, "
+                        + threads + " 个线程, 不一致 " + roundMismatches);
+                mismatches += roundMismatches;
+            }
+        }
+
+        if (mismatches > 0) {
+            System.out.println("并行生成的结果与单线程不一致");
+            System.exit(1);
+        }
+        System.out.println("并行生成的结果与单线程一致");
+    }
+
+    private static long[] generateSequential(RaftChunkGenerator generator, WorldInfo worldInfo, List<long[]> chunks) {
+        InMemoryChunkData chunkData = new InMemoryChunkData(BenchmarkWorlds.MIN_HEIGHT, BenchmarkWorlds.MAX_HEIGHT);
+        long[] hashes = new long[chunks.size()];
+        for (int i = 0; i < chunks.size(); i++) {
+            hashes[i] = generate(generator, worldInfo, chunkData, chunks.get(i));
+        }
+        return hashes;
+    }
+
+    private static long[] generateParallel(RaftChunkGenerator generator, WorldInfo worldInfo, List<long[]> chunks,
+                                           int threads, Random random) throws Exception {
+        List<Integer> order = new ArrayList<>(chunks.size());
+        for (int i = 0; i < chunks.size(); i++) {
+            order.add(i);
+        }
+        Collections.shuffle(order, random);
+
+        long[] hashes = new long[chunks.size()];
+        AtomicInteger next = new AtomicInteger();
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        try {
+            List<Future<?>> workers = new ArrayList<>();
+            for (int t = 0; t < threads; t++) {
+                workers.add(executor.submit(() -> {
+                    InMemoryChunkData chunkData = new InMemoryChunkData(BenchmarkWorlds.MIN_HEIGHT, BenchmarkWorlds.MAX_HEIGHT);
+                    for (int n = next.getAndIncrement(); n < order.size(); n = next.getAndIncrement()) {
+                        int index = order.get(n);
+                        hashes[index] = generate(generator, worldInfo, chunkData, chunks.get(index));
+                    }
+                }));
+            }
+            for (Future<?> worker : workers) {
+                worker.get();
+            }
+        } finally {
+            executor.shutdown();
+        }
+        return hashes;
+    }
+
+    // 与服务器相同的阶段顺序，服务器传入的 Random 不影响结果，这里固定传入
+    private static long generate(RaftChunkGenerator generator, WorldInfo worldInfo, InMemoryChunkData chunkData, long[] chunk) {
+        int chunkX = (int) chunk[0];
+        int chunkZ = (int) chunk[1];
+        chunkData.clear();
+        generator.generateNoise(worldInfo, new Random(0L), chunkX, chunkZ, chunkData);
+        generator.generateSurface(worldInfo, new Random(0L), chunkX, chunkZ, chunkData);
+        generator.generateBedrock(worldInfo, new Random(0L), chunkX, chunkZ, chunkData);
+        return chunkData.contentHash();
+    }
+}
\ No newline at end of file
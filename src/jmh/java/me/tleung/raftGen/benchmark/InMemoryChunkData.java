@@ -0,0 +1,126 @@
+package me.tleung.raftGen.benchmark;
+
+import org.bukkit.Material;
+import org.bukkit.block.Biome;
+import org.bukkit.block.data.BlockData;
+import org.bukkit.generator.ChunkGenerator;
+import org.bukkit.material.MaterialData;
+
+import java.util.Arrays;
+
+/**
+ * 不依赖服务器的区块数据，只保存方块材质
+ * 供基准测试在没有服务器的情况下运行生成器；生物群系固定为海洋，方块数据只带材质
+ */
+public final class InMemoryChunkData implements ChunkGenerator.ChunkData {
+
+    private final int minHeight;
+    private final int maxHeight;
+    private final Material[] blocks;
+
+    public InMemoryChunkData(int minHeight, int maxHeight) {
+        this.minHeight = minHeight;
+        this.maxHeight = maxHeight;
+        this.blocks = new Material[16 * 16 * (maxHeight - minHeight)];
+        Arrays.fill(blocks, Material.AIR);
+    }
+
+    /**
+     * 清空为空气，便于在基准测试之间复用
+     */
+    public void clear() {
+        Arrays.fill(blocks, Material.AIR);
+    }
+
+    /**
+     * 所有方块材质的哈希，用于比较两次生成的区块是否完全相同
+     */
+    public long contentHash() {
+        long hash = 0xCBF29CE484222325L;
+        for (Material block : blocks) {
+            hash = (hash ^ block.ordinal()) * 0x100000001B3L;
+        }
+        return hash;
+    }
+
+    private int index(int x, int y, int z) {
+        return ((y - minHeight) << 8) | (z << 4) | x;
+    }
+
+    private boolean inBounds(int x, int y, int z) {
+        return x >= 0 && x < 16 && z >= 0 && z < 16 && y >= minHeight && y < maxHeight;
+    }
+
+    @Override
+    public int getMinHeight() {
+        return minHeight;
+    }
+
+    @Override
+    public int getMaxHeight() {
+        return maxHeight;
+    }
+
+    @Override
+    public Biome getBiome(int x, int y, int z) {
+        return BenchmarkWorlds.OCEAN;
+    }
+
+    @Override
+    public void setBlock(int x, int y, int z, Material material) {
+        if (inBounds(x, y, z)) {
+            blocks[index(x, y, z)] = material;
+        }
+    }
+
+    @Override
+    public void setBlock(int x, int y, int z, MaterialData material) {
+        setBlock(x, y, z, material.getItemType());
+    }
+
+    @Override
+    public void setBlock(int x, int y, int z, BlockData blockData) {
+        setBlock(x, y, z, blockData.getMaterial());
+    }
+
+    @Override
+    public void setRegion(int xMin, int yMin, int zMin, int xMax, int yMax, int zMax, Material material) {
+        for (int x = Math.max(0, xMin); x < Math.min(16, xMax); x++) {
+            for (int y = Math.max(minHeight, yMin); y < Math.min(maxHeight, yMax); y++) {
+                for (int z = Math.max(0, zMin); z < Math.min(16, zMax); z++) {
+                    blocks[index(x, y, z)] = material;
+                }
+            }
+        }
+    }
+
+    @Override
+    public void setRegion(int xMin, int yMin, int zMin, int xMax, int yMax, int zMax, MaterialData material) {
+        setRegion(xMin, yMin, zMin, xMax, yMax, zMax, material.getItemType());
+    }
+
+    @Override
+    public void setRegion(int xMin, int yMin, int zMin, int xMax, int yMax, int zMax, BlockData blockData) {
+        setRegion(xMin, yMin, zMin, xMax, yMax, zMax, blockData.getMaterial());
+    }
+
+    @Override
+    public Material getType(int x, int y, int z) {
+        return inBounds(x, y, z) ? blocks[index(x, y, z)] : Material.AIR;
+    }
+
+    @Override
+    public MaterialData getTypeAndData(int x, int y, int z) {
+        return new MaterialData(getType(x, y, z));
+    }
+
+    @Override
+    public BlockData getBlockData(int x, int y, int z) {
+        return BenchmarkWorlds.blockData(getType(x, y, z));
+    }
+
+    @Override
+    public byte getData(int x, int y, int z) {
+        return 0;
+    }
+}
\ No newline at end of file
@@ -0,0 +1,116 @@
+package me.tleung.raftGen.benchmark;
+
+import me.tleung.raftGen.generator.CoarseNoiseGrid;
+import me.tleung.raftGen.generator.NoiseSampler;
+import me.tleung.raftGen.generator.RegionNoiseCache;
+import me.tleung.raftGen.noise.GradientNoise;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 噪声函数的单次采样耗时 (ns/sample)
+ * getSmoothFBM 直接委托给 GradientNoise.fbm，这里以大陆噪声第一层的参数测量
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@OperationsPerInvocation(NoiseBenchmark.SAMPLES)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class NoiseBenchmark {
+
+    static final int SAMPLES = 16 * 16;
+
+    private final NoiseSampler selector = (x, z) -> GradientNoise.fbm(x, z, 0.0003, 4, 2.0, 0.6, BenchmarkWorlds.SEED);
+    private RegionNoiseCache regionCache;
+    private int originX;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        regionCache = new RegionNoiseCache(256, 8);
+    }
+
+    // 每次调用平移一个区块，避免 JIT 把固定坐标的结果折叠掉
+    private int nextOrigin() {
+        originX += 16;
+        if (originX > 1 << 20) {
+            originX = 0;
+        }
+        return originX;
+    }
+
+    @Benchmark
+    public double gradientSample() {
+        int baseX = nextOrigin();
+        double sum = 0;
+        for (int x = 0; x < 16; x++) {
+            for (int z = 0; z < 16; z++) {
+                sum += GradientNoise.sample(baseX + x, z, 0.01, BenchmarkWorlds.SEED);
+            }
+        }
+        return sum;
+    }
+
+    @Benchmark
+    public double smoothFbm() {
+        int baseX = nextOrigin();
+        double sum = 0;
+        for (int x = 0; x < 16; x++) {
+            for (int z = 0; z < 16; z++) {
+                sum += GradientNoise.fbm(baseX + x, z, 0.00002, 8, 1.8, 0.7, BenchmarkWorlds.SEED + 10000);
+            }
+        }
+        return sum;
+    }
+
+    @Benchmark
+    public double selectorExact() {
+        int baseX = nextOrigin();
+        double sum = 0;
+        for (int x = 0; x < 16; x++) {
+            for (int z = 0; z < 16; z++) {
+                sum += selector.sample(baseX + x, z);
+            }
+        }
+        return sum;
+    }
+
+    @Benchmark
+    public double selectorChunkGrid() {
+        int baseX = nextOrigin();
+        CoarseNoiseGrid grid = new CoarseNoiseGrid(baseX, 0, baseX + 15, 15, 8, selector);
+        double sum = 0;
+        for (int x = 0; x < 16; x++) {
+            for (int z = 0; z < 16; z++) {
+                sum += grid.sample(baseX + x, z);
+            }
+        }
+        return sum;
+    }
+
+    @Benchmark
+    public double selectorRegionCache() {
+        int baseX = nextOrigin();
+        NoiseSampler view = regionCache.view(BenchmarkWorlds.SEED, selector);
+        double sum = 0;
+        for (int x = 0; x < 16; x++) {
+            for (int z = 0; z < 16; z++) {
+                sum += view.sample(baseX + x, z);
+            }
+        }
+        return sum;
+    }
+}
\ No newline at end of file
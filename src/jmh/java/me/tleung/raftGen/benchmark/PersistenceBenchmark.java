@@ -0,0 +1,119 @@
+package me.tleung.raftGen.benchmark;
+
+import me.tleung.raftGen.PersistenceBenchmarkSupport;
+import org.bukkit.Location;
+import org.bukkit.World;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+/**
+ * 木筏数据完整保存与读取的耗时，使用合成的木筏与团队数据
+ * 配合 -prof gc 查看每次操作的分配量 (gc.alloc.rate.norm)，写入的字节数在每组参数结束时输出
+ * sqlite 后端需要 classpath 中有 SQLite JDBC 驱动:
+ *   mvn -Pjmh test-compile exec:exec -Djmh.args="PersistenceBenchmark -prof gc"
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Thread)
+public class PersistenceBenchmark {
+
+    // 每 8 个玩家中有 3 个组成一个团队，成员共用队长的木筏
+    private static final int TEAM_STRIDE = 8;
+    private static final int TEAM_SIZE = 3;
+    private static final int RAFT_SPACING = 200;
+
+    @Param({"1000", "10000", "100000"})
+    public int rafts;
+
+    @Param({"yaml", "binary", "sqlite"})
+    public String backend;
+
+    private final Map<String, World> worlds = new HashMap<>();
+    private final Map<UUID, Location> playerRafts = new HashMap<>();
+    private final Map<UUID, String> raftNames = new HashMap<>();
+    private final Map<UUID, UUID> teamData = new HashMap<>();
+    private File directory;
+    private PersistenceBenchmarkSupport persistence;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        World world = BenchmarkWorlds.createWorld("raft_world");
+        worlds.put(world.getName(), world);
+        generate(world, new Random(rafts));
+
+        directory = Files.createTempDirectory("raftgen-persistence").toFile();
+        persistence = PersistenceBenchmarkSupport.open(backend, directory);
+        persistence.saveAll(playerRafts, raftNames, teamData);
+    }
+
+    private void generate(World world, Random random) {
+        UUID leaderId = null;
+        Location leaderRaft = null;
+        for (int i = 0; i < rafts; i++) {
+            UUID playerId = new UUID(random.nextLong(), random.nextLong());
+            int slot = i % TEAM_STRIDE;
+
+            Location location;
+            if (slot > 0 && slot < TEAM_SIZE) {
+                location = leaderRaft;
+                teamData.put(playerId, leaderId);
+            } else {
+                location = new Location(world, (i % 500) * RAFT_SPACING, 64, (i / 500) * RAFT_SPACING);
+                if (slot == 0) {
+                    leaderId = playerId;
+                    leaderRaft = location;
+                    teamData.put(playerId, playerId);
+                }
+            }
+            playerRafts.put(playerId, location);
+            raftNames.put(playerId, "木筏 #" + i);
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        System.out.println();
+        System.out.println("[" + backend + ", " + rafts + " rafts] 写入字节数: " + persistence.bytesOnDisk());
+        persistence.close();
+        try (Stream<Path> paths = Files.walk(directory.toPath())) {
+            paths.sorted(Comparator.reverseOrder()).map(Path::toFile).forEach(File::delete);
+        }
+    }
+
+    @Benchmark
+    public void saveAllData() throws IOException {
+        persistence.saveAll(playerRafts, raftNames, teamData);
+    }
+
+    @Benchmark
+    public void loadAllData(Blackhole blackhole) throws IOException {
+        blackhole.consume(persistence.loadAll(worlds::get));
+    }
+}
\ No newline at end of file
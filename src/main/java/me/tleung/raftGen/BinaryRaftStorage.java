@@ -0,0 +1,34 @@
+package me.tleung.raftGen;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.util.logging.Logger;
+
+/**
+ * 二进制快照存储（data.dat），格式见 RaftSnapshotFile
+ */
+final class BinaryRaftStorage extends FileRaftStorage {
+
+    BinaryRaftStorage(File dataFolder, int backupCount, Logger logger) {
+        super(new File(dataFolder, "data.dat"), backupCount, logger);
+    }
+
+    @Override
+    public String getName() {
+        return "binary";
+    }
+
+    @Override
+    protected DataManager.DataSnapshot decode(byte[] data) throws IOException {
+        return RaftSnapshotFile.read(new ByteArrayInputStream(data));
+    }
+
+    @Override
+    protected byte[] encode(DataManager.DataSnapshot snapshot) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(64 * 1024);
+        RaftSnapshotFile.write(out, snapshot);
+        return out.toByteArray();
+    }
+}
\ No newline at end of file
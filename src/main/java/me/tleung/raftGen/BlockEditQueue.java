@@ -0,0 +1,315 @@
+package me.tleung.raftGen;
+
+import org.bukkit.Bukkit;
+import org.bukkit.Material;
+import org.bukkit.World;
+import org.bukkit.block.Block;
+import org.bukkit.scheduler.BukkitRunnable;
+import org.bukkit.scheduler.BukkitTask;
+
+import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Predicate;
+
+/**
+ * 批量修改方块（木筏生成、重置和删除）
+ * 修改按区块分组，关闭物理更新后逐个写入；每 tick 最多使用 performance.block-edits.max-ms-per-tick 毫秒，
+ * 大的任务分散到之后的 tick 继续，未加载的区块异步加载后再处理；每个区块完成后只刷新一次
+ * 只在主线程使用
+ */
+final class BlockEditQueue {
+
+    private final RaftGen plugin;
+    private final ArrayDeque<Job> jobs = new ArrayDeque<>();
+    private final long maxNanosPerTick;
+
+    private BukkitTask task;
+    // 当前 tick 已用掉的时间，立即执行的修改和排队任务共用同一份预算
+    private int budgetTick = -1;
+    private long spentNanos;
+
+    BlockEditQueue(RaftGen plugin) {
+        this.plugin = plugin;
+        double maxMillis = plugin.getConfig().getDouble("performance.block-edits.max-ms-per-tick", 2.0);
+        this.maxNanosPerTick = (long) (Math.max(0.1, maxMillis) * 1_000_000L);
+    }
+
+    Batch batch(World world) {
+        return new Batch(world);
+    }
+
+    /**
+     * 排队中尚未写入的方块数量
+     */
+    int getPendingCount() {
+        int pending = 0;
+        for (Job job : jobs) {
+            pending += job.remaining();
+        }
+        return pending;
+    }
+
+    /**
+     * 立即写入所有排队的修改，插件停用时调用
+     */
+    void flush() {
+        if (task != null) {
+            task.cancel();
+            task = null;
+        }
+        while (!jobs.isEmpty()) {
+            Job job = jobs.peek();
+            job.process(Long.MAX_VALUE, true);
+            jobs.poll();
+            job.complete();
+        }
+    }
+
+    private void enqueue(Job job) {
+        jobs.add(job);
+        // 前面没有其他任务时先用掉这个 tick 剩余的预算，小任务通常在这里就能完成
+        if (jobs.size() == 1) {
+            drain();
+        }
+        if (!jobs.isEmpty() && task == null) {
+            task = new BukkitRunnable() {
+                @Override
+                public void run() {
+                    drain();
+                    if (jobs.isEmpty()) {
+                        cancel();
+                        task = null;
+                    }
+                }
+            }.runTaskTimer(plugin, 1L, 1L);
+        }
+    }
+
+    private void drain() {
+        long start = System.nanoTime();
+        long deadline = start + remainingBudget();
+        try {
+            while (!jobs.isEmpty() && System.nanoTime() < deadline) {
+                Job job = jobs.peek();
+                if (!job.process(deadline, false)) {
+                    // 任务在等待区块加载或用完了预算
+                    return;
+                }
+                jobs.poll();
+                job.complete();
+            }
+        } finally {
+            spentNanos += System.nanoTime() - start;
+        }
+    }
+
+    private long remainingBudget() {
+        int tick = Bukkit.getCurrentTick();
+        if (tick != budgetTick) {
+            budgetTick = tick;
+            spentNanos = 0;
+        }
+        return Math.max(0, maxNanosPerTick - spentNanos);
+    }
+
+    private static long chunkKey(int chunkX, int chunkZ) {
+        return ((long) chunkX << 32) | (chunkZ & 0xFFFFFFFFL);
+    }
+
+    /**
+     * 一组方块修改，收集完成后用 submit() 排队或用 applyNow() 立即写入
+     */
+    final class Batch {
+        private final World world;
+        // 区块坐标 -> 该区块内的修改，保持添加顺序
+        private final Map<Long, ChunkEdits> chunks = new LinkedHashMap<>();
+        private int size;
+
+        private Batch(World world) {
+            this.world = world;
+        }
+
+        Batch set(int x, int y, int z, Material type) {
+            return replace(x, y, z, type, null);
+        }
+
+        /**
+         * 写入时方块的当前类型满足 condition 才替换，condition 为 null 时总是替换
+         */
+        Batch replace(int x, int y, int z, Material type, Predicate<Material> condition) {
+            chunks.computeIfAbsent(chunkKey(x >> 4, z >> 4), key -> new ChunkEdits(x >> 4, z >> 4))
+                    .edits.add(new Edit(x, y, z, type, condition));
+            size++;
+            return this;
+        }
+
+        int size() {
+            return size;
+        }
+
+        /**
+         * 按每 tick 的时间预算写入
+         * @return 写入完成后得到实际改变的方块数量，在主线程完成
+         */
+        CompletableFuture<Integer> submit() {
+            Job job = new Job(world, chunks.values());
+            if (world == null || job.remaining() == 0) {
+                return CompletableFuture.completedFuture(0);
+            }
+            enqueue(job);
+            return job.future;
+        }
+
+        /**
+         * 不受预算限制立即写入，只用于传送前必须就位的少量方块
+         * @return 实际改变的方块数量
+         */
+        int applyNow() {
+            if (world == null || size == 0) {
+                return 0;
+            }
+            remainingBudget();
+            long start = System.nanoTime();
+            Job job = new Job(world, chunks.values());
+            job.process(Long.MAX_VALUE, true);
+            spentNanos += System.nanoTime() - start;
+            return job.changed;
+        }
+    }
+
+    private final class Job {
+        private final World world;
+        private final ChunkEdits[] chunks;
+        private final CompletableFuture<Integer> future = new CompletableFuture<>();
+        private int chunkIndex;
+        private int editIndex;
+        private int changed;
+
+        Job(World world, Collection<ChunkEdits> chunks) {
+            this.world = world;
+            this.chunks = chunks.toArray(new ChunkEdits[0]);
+        }
+
+        int remaining() {
+            int remaining = 0;
+            for (int i = chunkIndex; i < chunks.length; i++) {
+                remaining += chunks[i].edits.size() - (i == chunkIndex ? editIndex : 0);
+            }
+            return remaining;
+        }
+
+        /**
+         * 写入修改直到完成或到达 deadline
+         * @param loadSync 区块未加载时是否同步加载
+         * @return 是否已全部完成
+         */
+        boolean process(long deadline, boolean loadSync) {
+            while (chunkIndex < chunks.length) {
+                ChunkEdits chunk = chunks[chunkIndex];
+                if (!chunk.failed) {
+                    if (!chunk.ready(world, loadSync)) {
+                        return false;
+                    }
+
+                    List<Edit> edits = chunk.edits;
+                    while (editIndex < edits.size()) {
+                        if (System.nanoTime() >= deadline) {
+                            return false;
+                        }
+                        if (edits.get(editIndex++).apply(world)) {
+                            changed++;
+                            chunk.changed = true;
+                        }
+                    }
+                }
+
+                chunk.finish(world);
+                chunkIndex++;
+                editIndex = 0;
+            }
+            return true;
+        }
+
+        void complete() {
+            future.complete(changed);
+        }
+    }
+
+    private final class ChunkEdits {
+        final int chunkX;
+        final int chunkZ;
+        final List<Edit> edits = new ArrayList<>();
+        boolean changed;
+        boolean failed;
+        private boolean loading;
+        private boolean prepared;
+        // 处理期间持有区块票据，防止跨 tick 的任务中途区块被卸载；区块已有本插件的票据时不重复添加
+        private boolean ticket;
+
+        ChunkEdits(int chunkX, int chunkZ) {
+            this.chunkX = chunkX;
+            this.chunkZ = chunkZ;
+        }
+
+        boolean ready(World world, boolean loadSync) {
+            if (prepared) {
+                return true;
+            }
+            if (world.isChunkLoaded(chunkX, chunkZ) || loadSync) {
+                world.getChunkAt(chunkX, chunkZ);
+                ticket = world.addPluginChunkTicket(chunkX, chunkZ, plugin);
+                prepared = true;
+                return true;
+            }
+
+            if (!loading) {
+                loading = true;
+                world.getChunkAtAsync(chunkX, chunkZ).whenComplete((loaded, error) -> {
+                    loading = false;
+                    if (error != null) {
+                        plugin.getLogger().warning("加载区块失败，跳过该区块的方块修改: " + chunkX + ", " + chunkZ + " - " + error.getMessage());
+                        failed = true;
+                    }
+                });
+            }
+            return false;
+        }
+
+        void finish(World world) {
+            if (ticket) {
+                world.removePluginChunkTicket(chunkX, chunkZ, plugin);
+                ticket = false;
+            }
+            // 所有修改都关闭了物理更新，区块完成后统一发送一次给客户端
+            if (changed) {
+                world.refreshChunk(chunkX, chunkZ);
+            }
+        }
+    }
+
+    private static final class Edit {
+        final int x;
+        final int y;
+        final int z;
+        final Material type;
+        final Predicate<Material> condition;
+
+        Edit(int x, int y, int z, Material type, Predicate<Material> condition) {
+            this.x = x;
+            this.y = y;
+            this.z = z;
+            this.type = type;
+            this.condition = condition;
+        }
+
+        boolean apply(World world) {
+            Block block = world.getBlockAt(x, y, z);
+            Material current = block.getType();
+            if (current == type || (condition != null && !condition.test(current))) {
+                return false;
+            }
+            block.setType(type, false);
+            return true;
+        }
+    }
+}
\ No newline at end of file
@@ -0,0 +1,454 @@
+package me.tleung.raftGen;
+
+import org.bukkit.Bukkit;
+import org.bukkit.Location;
+import org.bukkit.World;
+import org.bukkit.command.CommandSender;
+import org.bukkit.configuration.file.FileConfiguration;
+import org.bukkit.configuration.file.YamlConfiguration;
+import org.bukkit.entity.Player;
+import org.bukkit.scheduler.BukkitRunnable;
+import org.bukkit.scheduler.BukkitTask;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayDeque;
+import java.util.LinkedHashSet;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.logging.Level;
+
+/**
+ * 木筏世界区块预生成
+ * 使用 Paper 的异步区块接口逐个生成区块，限制同时进行的请求数量，TPS 过低时暂停，
+ * 并把进度写入 pregen.yml，服务器重启后可以继续
+ *
+ * 创建木筏后自动预生成后续木筏位置使用单独的轻量队列，不占用管理员的任务，也不写入进度文件；
+ * 管理员的任务运行时自动预生成暂停
+ */
+public class ChunkPregenerator {
+
+    private static final String MODE_RADIUS = "radius";
+    private static final String MODE_SLOTS = "slots";
+
+    // 半径上限，保证区块总数不会溢出
+    private static final int MAX_RADIUS = 10000;
+
+    private final RaftGen plugin;
+    private final RaftManager raftManager;
+    private final File progressFile;
+
+    private BukkitTask task;
+    private CommandSender reporter;
+    private int runId;
+
+    // 当前任务定义
+    private World world;
+    private String mode;
+    private int centerChunkX;
+    private int centerChunkZ;
+    private int radius;
+    private int firstSlot;
+    private int slotCount;
+    private long[] slotChunks;
+    private int total;
+
+    // 当前任务进度，只在主线程读写（Paper 在主线程完成 getChunkAtAsync 的回调）
+    private int nextIndex;
+    private int completed;
+    private int failed;
+    private final TreeSet<Integer> inFlight = new TreeSet<>();
+    private long lastReportTime;
+
+    // 自动预生成队列，只在主线程读写
+    private final ArrayDeque<Long> aheadQueue = new ArrayDeque<>();
+    private World aheadWorld;
+    private BukkitTask aheadTask;
+    private int aheadRunId;
+    private int aheadInFlight;
+
+    // 配置
+    private int maxConcurrent;
+    private double minTps;
+    private long reportIntervalMillis;
+
+    public ChunkPregenerator(RaftGen plugin, RaftManager raftManager) {
+        this.plugin = plugin;
+        this.raftManager = raftManager;
+        this.progressFile = new File(plugin.getDataFolder(), "pregen.yml");
+    }
+
+    /**
+     * 以指定区块为中心，按方形螺旋顺序预生成半径内的所有区块
+     */
+    public boolean startRadius(World world, int centerChunkX, int centerChunkZ, int radius, CommandSender reporter) {
+        if (isRunning() || world == null || radius < 0 || radius > MAX_RADIUS) {
+            return false;
+        }
+
+        this.mode = MODE_RADIUS;
+        this.centerChunkX = centerChunkX;
+        this.centerChunkZ = centerChunkZ;
+        this.radius = radius;
+        this.slotChunks = null;
+        int side = 2 * radius + 1;
+        this.total = side * side;
+
+        begin(world, 0, reporter);
+        return true;
+    }
+
+    /**
+     * 预生成接下来若干个木筏位置周围的区块
+     */
+    public boolean startSlots(World world, int firstSlot, int slotCount, CommandSender reporter) {
+        if (isRunning() || world == null || slotCount <= 0) {
+            return false;
+        }
+
+        this.mode = MODE_SLOTS;
+        this.firstSlot = firstSlot;
+        this.slotCount = slotCount;
+        this.slotChunks = collectSlotChunks(world, firstSlot, slotCount);
+        this.total = slotChunks.length;
+
+        begin(world, 0, reporter);
+        return true;
+    }
+
+    /**
+     * 插件启用时继续上次未完成的预生成
+     */
+    public void resumeIfPending() {
+        if (!progressFile.exists() || isRunning()) {
+            return;
+        }
+
+        FileConfiguration progress = YamlConfiguration.loadConfiguration(progressFile);
+        World savedWorld = Bukkit.getWorld(progress.getString("world", ""));
+        if (savedWorld == null) {
+            plugin.getLogger().warning("无法继续区块预生成: 世界 " + progress.getString("world") + " 未加载");
+            return;
+        }
+
+        this.mode = progress.getString("mode", MODE_RADIUS);
+        if (MODE_SLOTS.equals(mode)) {
+            this.firstSlot = progress.getInt("first-slot");
+            this.slotCount = progress.getInt("slot-count");
+            this.slotChunks = collectSlotChunks(savedWorld, firstSlot, slotCount);
+            this.total = slotChunks.length;
+        } else {
+            this.centerChunkX = progress.getInt("center-x");
+            this.centerChunkZ = progress.getInt("center-z");
+            this.radius = progress.getInt("radius");
+            this.slotChunks = null;
+            int side = 2 * radius + 1;
+            this.total = side * side;
+        }
+
+        int resumeIndex = Math.max(0, Math.min(total, progress.getInt("next-index")));
+        plugin.getLogger().info("继续区块预生成: " + resumeIndex + "/" + total);
+        begin(savedWorld, resumeIndex, null);
+    }
+
+    /**
+     * 停止预生成
+     * @param keepProgress 是否保留进度文件，以便之后继续
+     */
+    public void stop(boolean keepProgress) {
+        boolean running = isRunning();
+        if (running) {
+            task.cancel();
+            task = null;
+        }
+        runId++;
+
+        if (!keepProgress) {
+            deleteProgress();
+        } else if (running) {
+            // 没有运行中的任务时保留原有的进度文件，已完成的任务不会重新写入进度
+            saveProgress();
+        }
+        inFlight.clear();
+    }
+
+    /**
+     * 插件停用时调用，保留进度供下次启动继续
+     */
+    public void shutdown() {
+        if (isRunning()) {
+            stop(true);
+        }
+        if (aheadTask != null) {
+            aheadTask.cancel();
+            aheadTask = null;
+        }
+        aheadRunId++;
+        aheadQueue.clear();
+        aheadInFlight = 0;
+    }
+
+    /**
+     * 在后台预生成接下来若干个木筏位置周围尚未生成的区块
+     * 新的请求替换队列中尚未开始的区块；管理员的预生成任务运行或 TPS 过低时暂停
+     */
+    public void pregenerateAhead(World world, int firstSlot, int slotCount) {
+        if (world == null || slotCount <= 0) {
+            return;
+        }
+
+        loadSettings();
+        aheadWorld = world;
+        aheadQueue.clear();
+        for (long chunk : collectSlotChunks(world, firstSlot, slotCount)) {
+            aheadQueue.add(chunk);
+        }
+
+        if (aheadTask == null) {
+            final int currentRun = ++aheadRunId;
+            aheadInFlight = 0;
+            aheadTask = new BukkitRunnable() {
+                @Override
+                public void run() {
+                    tickAhead(currentRun);
+                }
+            }.runTaskTimer(plugin, 1L, 1L);
+        }
+    }
+
+    private void tickAhead(int currentRun) {
+        if (currentRun != aheadRunId) {
+            return;
+        }
+        if (aheadQueue.isEmpty() && aheadInFlight == 0) {
+            aheadTask.cancel();
+            aheadTask = null;
+            return;
+        }
+        if (isRunning() || Bukkit.getTPS()[0] < minTps) {
+            return;
+        }
+
+        while (aheadInFlight < maxConcurrent && !aheadQueue.isEmpty()) {
+            long chunk = aheadQueue.poll();
+            int chunkX = (int) (chunk >> 32);
+            int chunkZ = (int) chunk;
+            if (aheadWorld.isChunkGenerated(chunkX, chunkZ)) {
+                continue;
+            }
+
+            aheadInFlight++;
+            aheadWorld.getChunkAtAsync(chunkX, chunkZ, true).whenComplete((loaded, error) -> {
+                if (currentRun != aheadRunId) {
+                    return;
+                }
+                aheadInFlight--;
+                if (error != null) {
+                    plugin.getLogger().log(Level.WARNING, "預生成區塊失敗: " + chunkX + ", " + chunkZ, error);
+                }
+            });
+        }
+    }
+
+    public boolean isRunning() {
+        return task != null;
+    }
+
+    public int getCompleted() {
+        return completed;
+    }
+
+    public int getTotal() {
+        return total;
+    }
+
+    public double getProgress() {
+        return total == 0 ? 1.0 : (double) completed / total;
+    }
+
+    public String getStatusInfo() {
+        if (!isRunning()) {
+            return "§a區塊預生成: §e未運行" + (progressFile.exists() ? " (有未完成的進度)" : "");
+        }
+        return String.format("§a區塊預生成: §e%d/%d (%.1f%%) §7失敗 %d, 進行中 %d",
+                completed, total, getProgress() * 100, failed, inFlight.size());
+    }
+
+    private void begin(World world, int startIndex, CommandSender reporter) {
+        this.world = world;
+        this.reporter = reporter;
+        this.nextIndex = startIndex;
+        this.completed = startIndex;
+        this.failed = 0;
+        this.inFlight.clear();
+        this.lastReportTime = System.currentTimeMillis();
+        loadSettings();
+
+        final int currentRun = ++runId;
+        task = new BukkitRunnable() {
+            @Override
+            public void run() {
+                tick(currentRun);
+            }
+        }.runTaskTimer(plugin, 1L, 1L);
+
+        saveProgress();
+        report("§a開始預生成 " + total + " 個區塊 (世界: " + world.getName() + ")");
+    }
+
+    private void loadSettings() {
+        FileConfiguration config = plugin.getConfig();
+        maxConcurrent = Math.max(1, config.getInt("performance.pregen.max-concurrent", 8));
+        minTps = config.getDouble("performance.pregen.min-tps", 18.0);
+        reportIntervalMillis = Math.max(1, config.getInt("performance.pregen.progress-interval", 10)) * 1000L;
+    }
+
+    private void tick(int currentRun) {
+        if (currentRun != runId) {
+            return;
+        }
+
+        if (nextIndex >= total && inFlight.isEmpty()) {
+            finish();
+            return;
+        }
+
+        // 服务器负载过高时暂停发出新请求，已发出的请求照常完成
+        boolean throttled = Bukkit.getTPS()[0] < minTps;
+        if (!throttled) {
+            while (inFlight.size() < maxConcurrent && nextIndex < total) {
+                request(currentRun, nextIndex++);
+            }
+        }
+
+        long now = System.currentTimeMillis();
+        if (now - lastReportTime >= reportIntervalMillis) {
+            lastReportTime = now;
+            report(getStatusInfo() + (throttled ? " §c(TPS過低，已暫停)" : ""));
+            saveProgress();
+        }
+    }
+
+    private void request(int currentRun, int index) {
+        int chunkX;
+        int chunkZ;
+        if (slotChunks != null) {
+            chunkX = (int) (slotChunks[index] >> 32);
+            chunkZ = (int) slotChunks[index];
+        } else {
+            int[] offset = spiralOffset(index);
+            chunkX = centerChunkX + offset[0];
+            chunkZ = centerChunkZ + offset[1];
+        }
+
+        inFlight.add(index);
+        world.getChunkAtAsync(chunkX, chunkZ, true).whenComplete((chunk, error) -> {
+            if (currentRun != runId) {
+                return;
+            }
+            inFlight.remove(index);
+            if (error != null) {
+                failed++;
+                plugin.getLogger().log(Level.WARNING, "預生成區塊失敗: " + chunkX + ", " + chunkZ, error);
+            } else {
+                completed++;
+            }
+        });
+    }
+
+    private void finish() {
+        task.cancel();
+        task = null;
+        runId++;
+        deleteProgress();
+        report("§a區塊預生成完成! 共 " + total + " 個區塊" + (failed > 0 ? "，失敗 " + failed + " 個" : ""));
+    }
+
+    private void report(String message) {
+        // 进度总是写入日志，发起预生成的玩家在线时同时发送给玩家
+        plugin.getLogger().info(message.replaceAll("§.", ""));
+        if (reporter instanceof Player && ((Player) reporter).isOnline()) {
+            reporter.sendMessage(message);
+        }
+    }
+
+    private void saveProgress() {
+        FileConfiguration progress = new YamlConfiguration();
+        progress.set("world", world.getName());
+        progress.set("mode", mode);
+        if (MODE_SLOTS.equals(mode)) {
+            progress.set("first-slot", firstSlot);
+            progress.set("slot-count", slotCount);
+        } else {
+            progress.set("center-x", centerChunkX);
+            progress.set("center-z", centerChunkZ);
+            progress.set("radius", radius);
+        }
+        // 从最早仍未完成的请求继续，重复请求已生成的区块只会从磁盘读取
+        progress.set("next-index", inFlight.isEmpty() ? nextIndex : inFlight.first());
+
+        try {
+            progress.save(progressFile);
+        } catch (IOException e) {
+            plugin.getLogger().log(Level.WARNING, "保存預生成進度失敗", e);
+        }
+    }
+
+    private void deleteProgress() {
+        if (progressFile.exists() && !progressFile.delete()) {
+            plugin.getLogger().warning("無法刪除預生成進度文件: " + progressFile.getName());
+        }
+    }
+
+    // 木筏位置周围 pregen-chunk-radius 范围内的区块，去掉重复
+    private long[] collectSlotChunks(World world, int firstSlot, int slotCount) {
+        int chunkRadius = Math.max(0, plugin.getConfig().getInt("performance.pregen-chunk-radius", 2));
+        Set<Long> chunks = new LinkedHashSet<>();
+
+        for (int slot = firstSlot; slot < firstSlot + slotCount; slot++) {
+            Location center = raftManager.getRaftSlotLocation(world, slot);
+            int slotChunkX = center.getBlockX() >> 4;
+            int slotChunkZ = center.getBlockZ() >> 4;
+            for (int dx = -chunkRadius; dx <= chunkRadius; dx++) {
+                for (int dz = -chunkRadius; dz <= chunkRadius; dz++) {
+                    chunks.add(((long) (slotChunkX + dx) << 32) | ((slotChunkZ + dz) & 0xFFFFFFFFL));
+                }
+            }
+        }
+
+        long[] result = new long[chunks.size()];
+        int i = 0;
+        for (long chunk : chunks) {
+            result[i++] = chunk;
+        }
+        return result;
+    }
+
+    /**
+     * 方形螺旋上第 index 个位置相对中心的偏移，index 0 为中心
+     */
+    static int[] spiralOffset(int index) {
+        if (index == 0) {
+            return new int[]{0, 0};
+        }
+
+        int n = index + 1;
+        int k = (int) Math.ceil((Math.sqrt(n) - 1) / 2);
+        int t = 2 * k + 1;
+        int m = t * t;
+        t -= 1;
+
+        if (n >= m - t) {
+            return new int[]{k - (m - n), -k};
+        }
+        m -= t;
+        if (n >= m - t) {
+            return new int[]{-k, -k + (m - n)};
+        }
+        m -= t;
+        if (n >= m - t) {
+            return new int[]{-k + (m - n), k};
+        }
+        return new int[]{k, k - (m - n - t)};
+    }
+}
\ No newline at end of file
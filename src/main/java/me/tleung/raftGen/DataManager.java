@@ -3,89 +3,314 @@ package me.tleung.raftGen;
 
 import org.bukkit.Bukkit;
 import org.bukkit.Location;
-import org.bukkit.configuration.file.FileConfiguration;
-import org.bukkit.configuration.file.YamlConfiguration;
+import org.bukkit.World;
 import org.bukkit.plugin.Plugin;
 
 import java.io.File;
 import java.io.IOException;
 import java.util.*;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Function;
 import java.util.logging.Level;
 
 public class DataManager {
+    // 快照写入失败后重试的间隔
+    private static final long WRITE_RETRY_SECONDS = 30;
+
     private final RaftGen plugin;
-    private File dataFile;
-    private FileConfiguration dataConfig;
+    // 存储后端（storage.backend），只在 I/O 线程和加载时使用
+    private final RaftStorage storage;
+    // 数据文件保留的备份数量（storage.backups）
+    private final int backupCount;
+
+    // 单线程 I/O 执行器，保证快照和日志的写入按顺序进行
+    private final ScheduledExecutorService ioExecutor;
+    private final RaftJournal journal;
+    // 可选的内存映射木筏注册表，启用时木筏只保存在注册表中
+    private final RaftRegistryFile raftRegistry;
+    // 尚未写入的快照；连续多次保存会合并成一次写入
+    private final Object pendingLock = new Object();
+    private DataSnapshot pendingSnapshot;
+    private final AtomicBoolean writeScheduled = new AtomicBoolean(false);
+    // 写入失败后的延迟重试，停用时取消，由 shutdown 在当前线程补写
+    private volatile ScheduledFuture<?> retryTask;
+    // 自动保存状态：最近一次保存请求的时间和开始延后的时间只在主线程使用，写入耗时由 I/O 线程记录
+    private long lastSaveRequest = System.currentTimeMillis();
+    private long deferredSince;
+    private volatile long lastSaveDurationMillis = -1;
+    private volatile long lastSaveTime;
 
     public DataManager(RaftGen plugin) {
         this.plugin = plugin;
-        setupDataFile();
+        this.ioExecutor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "RaftGen-IO");
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.backupCount = plugin.getConfig().getInt("storage.backups", 3);
+        this.storage = createStorage(plugin.getConfig().getString("storage.backend", "binary"));
+        this.journal = new RaftJournal(plugin, ioExecutor);
+        this.raftRegistry = openRaftRegistry();
+    }
+
+    public RaftJournal getJournal() {
+        return journal;
+    }
+
+    /**
+     * 内存映射木筏注册表，未启用时为 null
+     */
+    RaftRegistryFile getRaftRegistry() {
+        return raftRegistry;
+    }
+
+    private RaftRegistryFile openRaftRegistry() {
+        // 延迟加载使用注册表作为索引：启动时只读取 UUID 到槽位的映射，木筏记录在玩家登入时读取
+        boolean lazyLoading = plugin.getConfig().getBoolean("storage.lazy-loading.enabled", false);
+        if (!lazyLoading && !plugin.getConfig().getBoolean("storage.mapped-registry.enabled", false)) {
+            return null;
+        }
+
+        File registryFile = new File(plugin.getDataFolder(), "rafts.registry");
+        int initialCapacity = plugin.getConfig().getInt("storage.mapped-registry.initial-capacity", 4096);
+        try {
+            RaftRegistryFile registry = new RaftRegistryFile(registryFile, initialCapacity);
+            plugin.getLogger().info("已启用内存映射木筏注册表: " + registry.size() + " 个木筏"
+                    + (lazyLoading ? "（延迟加载）" : ""));
+            return registry;
+        } catch (IOException e) {
+            plugin.getLogger().log(Level.SEVERE, "无法打开木筏注册表，改用普通数据文件", e);
+            return null;
+        }
     }
 
-    private void setupDataFile() {
-        dataFile = new File(plugin.getDataFolder(), "data.yml");
-        if (!dataFile.exists()) {
-            plugin.saveResource("data.yml", false);
+    private RaftStorage createStorage(String backend) {
+        switch (backend.toLowerCase(Locale.ROOT)) {
+            case "yaml":
+                return new YamlRaftStorage(plugin.getDataFolder(), backupCount, plugin.getLogger());
+            case "sqlite":
+                if (SqliteRaftStorage.isDriverAvailable()) {
+                    return new SqliteRaftStorage(plugin.getDataFolder(), plugin.getLogger());
+                }
+                plugin.getLogger().severe("找不到 SQLite 驱动，改用二进制数据文件");
+                return new BinaryRaftStorage(plugin.getDataFolder(), backupCount, plugin.getLogger());
+            case "binary":
+                return new BinaryRaftStorage(plugin.getDataFolder(), backupCount, plugin.getLogger());
+            default:
+                plugin.getLogger().warning("未知的存储后端: " + backend + "，改用二进制数据文件");
+                return new BinaryRaftStorage(plugin.getDataFolder(), backupCount, plugin.getLogger());
         }
-        dataConfig = YamlConfiguration.loadConfiguration(dataFile);
+    }
+
+    // 当前后端之外的其他后端，用于切换后端时导入旧数据
+    private List<RaftStorage> otherStorages() {
+        List<RaftStorage> others = new ArrayList<>();
+        others.add(new BinaryRaftStorage(plugin.getDataFolder(), backupCount, plugin.getLogger()));
+        others.add(new YamlRaftStorage(plugin.getDataFolder(), backupCount, plugin.getLogger()));
+        if (SqliteRaftStorage.isDriverAvailable()) {
+            others.add(new SqliteRaftStorage(plugin.getDataFolder(), plugin.getLogger()));
+        }
+        others.removeIf(other -> other.getName().equals(storage.getName()));
+        return others;
     }
 
     /**
      * 保存所有木筏数据 - 移除等级相关数据
+     * 在主线程复制当前状态，序列化和写入文件在 I/O 线程完成
      */
     public void saveAllData(Map<UUID, Location> playerRafts,
                             Map<UUID, String> raftNames,
                             TeamManager teamManager) {
-        try {
-            // 清除旧数据
-            dataConfig.set("rafts", null);
-            dataConfig.set("teams", null);
+        scheduleWrite(DataSnapshot.capture(playerRafts, raftNames, teamManager.getAllTeamData()));
+    }
 
-            // 保存木筏数据 - 只保存位置和名称
-            for (UUID playerId : playerRafts.keySet()) {
-                String path = "rafts." + playerId.toString();
+    /**
+     * 只保存变更过的木筏和团队
+     * @param changedRafts 变更过的木筏（玩家ID），已不存在的会从文件中删除
+     * @param changedTeams 变更过的团队（队长ID），已解散的会从文件中删除
+     */
+    public void saveChanges(Map<UUID, Location> playerRafts,
+                            Map<UUID, String> raftNames,
+                            Set<UUID> changedRafts,
+                            TeamManager teamManager,
+                            Set<UUID> changedTeams) {
+        scheduleWrite(DataSnapshot.captureChanges(playerRafts, raftNames, changedRafts, teamManager, changedTeams));
+    }
 
-                Location loc = playerRafts.get(playerId);
-                dataConfig.set(path + ".location.world", loc.getWorld().getName());
-                dataConfig.set(path + ".location.x", loc.getX());
-                dataConfig.set(path + ".location.y", loc.getY());
-                dataConfig.set(path + ".location.z", loc.getZ());
+    private void scheduleWrite(DataSnapshot snapshot) {
+        lastSaveRequest = System.currentTimeMillis();
+        synchronized (pendingLock) {
+            // 快照包含目前为止的所有变更，之后的日志记录写入新的日志段
+            snapshot.checkpoint = journal.checkpoint();
+            if (pendingSnapshot != null) {
+                RaftJournal.Checkpoint checkpoint = pendingSnapshot.checkpoint.then(snapshot.checkpoint);
+                snapshot = pendingSnapshot.merge(snapshot);
+                snapshot.checkpoint = checkpoint;
+            }
+            pendingSnapshot = snapshot;
+        }
+        if (writeScheduled.compareAndSet(false, true)) {
+            try {
+                ioExecutor.execute(this::drainPendingWrites);
+            } catch (RejectedExecutionException e) {
+                // 执行器已关闭（插件停用中），直接在当前线程写入
+                writeScheduled.set(false);
+                drainPendingWrites();
+            }
+        }
+    }
 
-                dataConfig.set(path + ".name", raftNames.get(playerId));
+    private void drainPendingWrites() {
+        while (true) {
+            boolean failed = false;
+            try {
+                DataSnapshot snapshot = takePendingSnapshot();
+                if (snapshot != null && !writeSnapshot(snapshot)) {
+                    failed = true;
+                }
+            } finally {
+                // 写入出现意外错误时也要释放，否则之后的快照只会合并而不会再写入
+                writeScheduled.set(false);
+            }
+            if (failed) {
+                // 失败的快照已放回待写入，稍后再试，不在这里连续重试
+                scheduleRetry();
+                return;
+            }
+            // 写入期间可能又有新的快照，且没有其他任务接手时继续处理
+            if (!hasPendingSnapshot() || !writeScheduled.compareAndSet(false, true)) {
+                return;
             }
+        }
+    }
 
-            // 保存团队数据
-            saveTeamData(teamManager);
+    private DataSnapshot takePendingSnapshot() {
+        synchronized (pendingLock) {
+            DataSnapshot snapshot = pendingSnapshot;
+            pendingSnapshot = null;
+            return snapshot;
+        }
+    }
 
-            dataConfig.save(dataFile);
-            plugin.getLogger().info("木筏数据已保存: " + playerRafts.size() + " 个木筏");
-        } catch (IOException e) {
-            plugin.getLogger().log(Level.SEVERE, "保存木筏数据时发生错误", e);
+    // 把写入失败的快照放回待写入：它比期间新加入的快照旧，先合并它再合并新的
+    private void requeue(DataSnapshot failed) {
+        synchronized (pendingLock) {
+            if (pendingSnapshot != null) {
+                RaftJournal.Checkpoint checkpoint = failed.checkpoint.then(pendingSnapshot.checkpoint);
+                failed = failed.merge(pendingSnapshot);
+                failed.checkpoint = checkpoint;
+            }
+            pendingSnapshot = failed;
+        }
+    }
+
+    private void scheduleRetry() {
+        try {
+            retryTask = ioExecutor.schedule(() -> {
+                if (hasPendingSnapshot() && writeScheduled.compareAndSet(false, true)) {
+                    drainPendingWrites();
+                }
+            }, WRITE_RETRY_SECONDS, TimeUnit.SECONDS);
+        } catch (RejectedExecutionException e) {
+            // 执行器已关闭（插件停用中），变更仍保留在日志中，下次启动时恢复
+        }
+    }
+
+    private boolean hasPendingSnapshot() {
+        synchronized (pendingLock) {
+            return pendingSnapshot != null;
         }
     }
 
     /**
-     * 保存团队数据
+     * @return 是否写入成功；失败时快照已放回待写入
      */
-    private void saveTeamData(TeamManager teamManager) {
-        // 保存团队结构
-        Set<UUID> processedTeams = new HashSet<>();
+    private boolean writeSnapshot(DataSnapshot snapshot) {
+        long start = System.nanoTime();
+        try {
+            // 检查点时在主线程取出的日志记录先写入磁盘，之后快照写入失败也能从日志恢复
+            journal.persist(snapshot.checkpoint);
+            storage.apply(snapshot);
+            // 注册表中的木筏修改也要先写回磁盘，才能删除对应的日志
+            if (raftRegistry != null) {
+                raftRegistry.force();
+            }
+            journal.commit(snapshot.checkpoint);
+            lastSaveDurationMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+            lastSaveTime = System.currentTimeMillis();
+            if (snapshot.full) {
+                plugin.getLogger().info("木筏数据已保存: " + snapshot.rafts.size() + " 个木筏");
+            }
+            return true;
+        } catch (IOException | RuntimeException e) {
+            plugin.getLogger().log(Level.SEVERE, "保存木筏数据时发生错误", e);
+            // 保留日志，下次启动时仍可从日志恢复这些变更
+            journal.abort(snapshot.checkpoint);
+            // 变更标记在捕获快照时已经清除，放回待写入，之后的保存会包含这些变更，
+            // 之后的快照写入成功并删除旧日志段时这些变更不会丢失
+            requeue(snapshot);
+            return false;
+        }
+    }
 
-        for (UUID playerId : teamManager.getAllPlayersInTeams()) {
-            UUID leaderId = teamManager.getPlayerTeamLeader(playerId);
-            if (leaderId != null && !processedTeams.contains(leaderId)) {
-                String teamPath = "teams." + leaderId.toString();
+    /**
+     * 在 I/O 线程执行任务，与数据写入按顺序进行；执行器已关闭时直接在当前线程执行
+     */
+    void runOnIoThread(Runnable task) {
+        try {
+            ioExecutor.execute(task);
+        } catch (RejectedExecutionException e) {
+            task.run();
+        }
+    }
 
-                // 保存团队成员
-                Set<UUID> members = teamManager.getTeamMembers(leaderId);
-                List<String> memberList = new ArrayList<>();
-                for (UUID memberId : members) {
-                    memberList.add(memberId.toString());
-                }
-                dataConfig.set(teamPath + ".members", memberList);
+    /**
+     * 等待所有已提交的保存写入完成
+     */
+    public void flush() {
+        try {
+            ioExecutor.submit(() -> { }).get(30, TimeUnit.SECONDS);
+        } catch (RejectedExecutionException e) {
+            // 执行器已关闭，没有待写入的数据
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (ExecutionException | TimeoutException e) {
+            plugin.getLogger().log(Level.WARNING, "等待数据写入完成时发生错误", e);
+        }
+    }
 
-                processedTeams.add(leaderId);
+    /**
+     * 插件停用时调用：写完所有待保存的数据后关闭 I/O 线程
+     */
+    public void shutdown() {
+        ScheduledFuture<?> retry = retryTask;
+        if (retry != null) {
+            retry.cancel(false);
+        }
+        ioExecutor.shutdown();
+        try {
+            if (!ioExecutor.awaitTermination(30, TimeUnit.SECONDS)) {
+                plugin.getLogger().warning("数据写入超时，部分数据可能未保存");
             }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+
+        // 关闭过程中提交的快照在当前线程补写
+        if (hasPendingSnapshot()) {
+            drainPendingWrites();
+        }
+        journal.close();
+        storage.close();
+        if (raftRegistry != null) {
+            raftRegistry.close();
         }
     }
 
@@ -93,80 +318,310 @@ public class DataManager {
      * 加载所有数据 - 移除等级相关数据
      */
     public RaftData loadAllData() {
-        RaftData raftData = new RaftData();
+        // 先等待未完成的写入，再从文件重新读取
+        flush();
+        RaftData raftData = toRaftData(readSnapshot(), Bukkit::getWorld);
 
-        // 加载木筏数据
-        if (dataConfig.isConfigurationSection("rafts")) {
-            for (String playerIdStr : dataConfig.getConfigurationSection("rafts").getKeys(false)) {
-                try {
-                    UUID playerId = UUID.fromString(playerIdStr);
-                    String path = "rafts." + playerIdStr;
+        // 关闭注册表后，把注册表中的木筏导回数据文件
+        if (raftRegistry == null) {
+            importLegacyRegistry(raftData);
+        }
 
-                    // 加载位置
-                    String worldName = dataConfig.getString(path + ".location.world");
-                    double x = dataConfig.getDouble(path + ".location.x");
-                    double y = dataConfig.getDouble(path + ".location.y");
-                    double z = dataConfig.getDouble(path + ".location.z");
+        // 在快照之上重放上次保存之后的变更
+        int replayed = journal.replay(raftData);
+        if (replayed > 0) {
+            plugin.getLogger().info("从日志恢复了 " + replayed + " 条变更记录");
+        }
+
+        plugin.getLogger().info("木筏数据加载完成: " + raftData.playerRafts.size() + " 个木筏");
+        return raftData;
+    }
 
-                    Location location = new Location(Bukkit.getWorld(worldName), x, y, z);
+    /**
+     * 把快照转换成 RaftData，世界按名称通过 worldLookup 查找，基准测试可以不启动服务器使用
+     */
+    static RaftData toRaftData(DataSnapshot snapshot, Function<String, World> worldLookup) {
+        RaftData raftData = new RaftData();
 
-                    // 加载名称
-                    String name = dataConfig.getString(path + ".name", "木筏");
+        // 加载木筏数据
+        for (DataSnapshot.RaftEntry raft : snapshot.rafts.values()) {
+            Location location = new Location(worldLookup.apply(raft.worldName), raft.x, raft.y, raft.z);
+            raftData.playerRafts.put(raft.playerId, location);
+            raftData.raftNames.put(raft.playerId, raft.name != null ? raft.name : "木筏");
+        }
 
-                    raftData.playerRafts.put(playerId, location);
-                    raftData.raftNames.put(playerId, name);
+        // 加载团队数据
+        for (Map.Entry<UUID, List<UUID>> team : snapshot.teams.entrySet()) {
+            for (UUID memberId : team.getValue()) {
+                raftData.teamMembers.put(memberId, team.getKey());
+            }
+        }
+        return raftData;
+    }
 
-                } catch (IllegalArgumentException e) {
-                    plugin.getLogger().warning("无效的UUID格式: " + playerIdStr);
+    /**
+     * 读取当前后端的数据；当前后端还没有数据时，从其他后端（包括旧版的 data.yml）导入一次
+     */
+    private DataSnapshot readSnapshot() {
+        if (!storage.exists()) {
+            for (RaftStorage other : otherStorages()) {
+                if (other.exists()) {
+                    return importFrom(other);
                 }
             }
         }
 
-        // 加载团队数据
-        loadTeamData(raftData);
+        try {
+            return storage.load();
+        } catch (IOException e) {
+            plugin.getLogger().log(Level.SEVERE, "读取木筏数据失败", e);
+            return DataSnapshot.empty();
+        }
+    }
 
-        plugin.getLogger().info("木筏数据加载完成: " + raftData.playerRafts.size() + " 个木筏");
-        return raftData;
+    private DataSnapshot importFrom(RaftStorage other) {
+        DataSnapshot snapshot;
+        try {
+            snapshot = other.load();
+        } catch (IOException e) {
+            plugin.getLogger().log(Level.SEVERE, "读取 " + other.getName() + " 数据失败", e);
+            other.close();
+            return DataSnapshot.empty();
+        }
+
+        try {
+            storage.apply(snapshot);
+            // 导入成功后旧数据改名保留，不再读取
+            other.retire();
+            plugin.getLogger().info("已将 " + other.getName() + " 数据导入为 " + storage.getName() + ": " + snapshot.rafts.size() + " 个木筏");
+        } catch (IOException e) {
+            // 导入失败时保留旧数据，下次启动再试
+            other.close();
+            plugin.getLogger().log(Level.SEVERE, "导入 " + other.getName() + " 数据失败", e);
+        }
+        return snapshot;
     }
 
     /**
-     * 加载团队数据
+     * 注册表关闭后仍留有 rafts.registry 时，把其中的木筏导入数据并在下次完整保存时写入 data.dat
      */
-    private void loadTeamData(RaftData raftData) {
-        if (dataConfig.isConfigurationSection("teams")) {
-            for (String leaderIdStr : dataConfig.getConfigurationSection("teams").getKeys(false)) {
-                try {
-                    UUID leaderId = UUID.fromString(leaderIdStr);
-                    String path = "teams." + leaderIdStr;
+    private void importLegacyRegistry(RaftData raftData) {
+        File registryFile = new File(plugin.getDataFolder(), "rafts.registry");
+        if (!registryFile.exists()) {
+            return;
+        }
 
-                    List<String> memberList = dataConfig.getStringList(path + ".members");
-                    for (String memberIdStr : memberList) {
-                        try {
-                            UUID memberId = UUID.fromString(memberIdStr);
-                            raftData.teamMembers.put(memberId, leaderId);
-                        } catch (IllegalArgumentException e) {
-                            plugin.getLogger().warning("无效的团队成员UUID: " + memberIdStr);
-                        }
-                    }
+        try {
+            RaftRegistryFile registry = new RaftRegistryFile(registryFile, 16);
+            registry.forEach((playerId, record) -> {
+                raftData.playerRafts.put(playerId, record.toLocation());
+                raftData.raftNames.put(playerId, record.name);
+            });
+            int imported = registry.size();
+            registry.close();
 
-                } catch (IllegalArgumentException e) {
-                    plugin.getLogger().warning("无效的队长UUID: " + leaderIdStr);
-                }
+            File migrated = new File(registryFile.getParentFile(), "rafts.registry.migrated");
+            if (!registryFile.renameTo(migrated)) {
+                plugin.getLogger().warning("无法重命名木筏注册表文件: " + registryFile.getName());
             }
+            raftData.imported = true;
+            plugin.getLogger().info("已从木筏注册表导入 " + imported + " 个木筏");
+        } catch (IOException e) {
+            plugin.getLogger().log(Level.SEVERE, "导入木筏注册表失败", e);
         }
     }
 
     /**
-     * 定时保存数据
+     * 定时保存数据 - 只写入变更过的条目，没有变更时不做任何事
+     * 距上次保存超过 raft.auto-save-interval，或待保存的变更达到 change-threshold 时保存；
+     * 服务器 MSPT 超过 max-mspt 时延后保存，最多延后 max-defer-seconds
      */
     public void startAutoSave() {
+        long intervalMillis = Math.max(1, plugin.getConfig().getLong("raft.auto-save-interval", 5)) * 60000L;
+        int changeThreshold = plugin.getConfig().getInt("performance.auto-save.change-threshold", 500);
+        long minIntervalMillis = plugin.getConfig().getLong("performance.auto-save.min-interval-seconds", 30) * 1000L;
+        double maxMspt = plugin.getConfig().getDouble("performance.auto-save.max-mspt", 45.0);
+        long maxDeferMillis = plugin.getConfig().getLong("performance.auto-save.max-defer-seconds", 120) * 1000L;
+
         Bukkit.getScheduler().runTaskTimer(plugin, () -> {
-            saveAllData(
-                    plugin.getRaftManager().getAllRafts(),
-                    plugin.getRaftManager().getAllRaftNames(),
-                    plugin.getRaftManager().getTeamManager()
-            );
-        }, 20L * 60 * 5, 20L * 60 * 5); // 每5分钟自动保存
+            RaftManager raftManager = plugin.getRaftManager();
+            int pending = raftManager.getPendingChangeCount();
+            if (pending == 0) {
+                deferredSince = 0;
+                return;
+            }
+
+            long now = System.currentTimeMillis();
+            long elapsed = now - lastSaveRequest;
+            boolean due = elapsed >= intervalMillis
+                    || (changeThreshold > 0 && pending >= changeThreshold && elapsed >= minIntervalMillis);
+            if (!due) {
+                return;
+            }
+
+            // 服务器繁忙时先不保存，期间的变更已写入日志，不会丢失
+            if (Bukkit.getAverageTickTime() > maxMspt) {
+                if (deferredSince == 0) {
+                    deferredSince = now;
+                }
+                if (now - deferredSince < maxDeferMillis) {
+                    return;
+                }
+            }
+
+            deferredSince = 0;
+            raftManager.saveData();
+        }, 20L, 20L); // 每秒检查一次
+    }
+
+    /**
+     * 最近一次保存写入磁盘的耗时（毫秒），尚未保存过时为 -1
+     */
+    public long getLastSaveDurationMillis() {
+        return lastSaveDurationMillis;
+    }
+
+    /**
+     * 最近一次保存完成的时间，尚未保存过时为 0
+     */
+    public long getLastSaveTime() {
+        return lastSaveTime;
+    }
+
+    /**
+     * 保存时在主线程复制的数据快照，之后只在 I/O 线程读取
+     * 完整快照包含所有数据；增量快照只包含变更和删除的条目
+     */
+    static final class DataSnapshot {
+        final boolean full;
+        // 由 scheduleWrite 设置，写入成功后据此删除旧的日志段
+        RaftJournal.Checkpoint checkpoint;
+        final Map<UUID, RaftEntry> rafts;
+        final Set<UUID> removedRafts;
+        final Map<UUID, List<UUID>> teams;
+        final Set<UUID> removedTeams;
+
+        private DataSnapshot(boolean full) {
+            this.full = full;
+            this.rafts = new LinkedHashMap<>();
+            this.removedRafts = new HashSet<>();
+            this.teams = new LinkedHashMap<>();
+            this.removedTeams = new HashSet<>();
+        }
+
+        static DataSnapshot empty() {
+            return new DataSnapshot(true);
+        }
+
+        static DataSnapshot delta() {
+            return new DataSnapshot(false);
+        }
+
+        /**
+         * @param teamData 玩家ID -> 队长ID，见 TeamManager.getAllTeamData
+         */
+        static DataSnapshot capture(Map<UUID, Location> playerRafts,
+                                    Map<UUID, String> raftNames,
+                                    Map<UUID, UUID> teamData) {
+            DataSnapshot snapshot = new DataSnapshot(true);
+            for (Map.Entry<UUID, Location> entry : playerRafts.entrySet()) {
+                RaftEntry raft = RaftEntry.of(entry.getKey(), entry.getValue(), raftNames.get(entry.getKey()));
+                if (raft != null) {
+                    snapshot.rafts.put(raft.playerId, raft);
+                }
+            }
+
+            for (Map.Entry<UUID, UUID> member : teamData.entrySet()) {
+                snapshot.teams.computeIfAbsent(member.getValue(), id -> new ArrayList<>()).add(member.getKey());
+            }
+
+            return snapshot;
+        }
+
+        static DataSnapshot captureChanges(Map<UUID, Location> playerRafts,
+                                           Map<UUID, String> raftNames,
+                                           Set<UUID> changedRafts,
+                                           TeamManager teamManager,
+                                           Set<UUID> changedTeams) {
+            DataSnapshot snapshot = new DataSnapshot(false);
+            for (UUID playerId : changedRafts) {
+                RaftEntry raft = RaftEntry.of(playerId, playerRafts.get(playerId), raftNames.get(playerId));
+                if (raft != null) {
+                    snapshot.rafts.put(playerId, raft);
+                } else if (!playerRafts.containsKey(playerId)) {
+                    snapshot.removedRafts.add(playerId);
+                }
+            }
+
+            for (UUID leaderId : changedTeams) {
+                Set<UUID> members = teamManager.getTeamMembers(leaderId);
+                if (teamManager.isTeamLeader(leaderId) && !members.isEmpty()) {
+                    snapshot.teams.put(leaderId, new ArrayList<>(members));
+                } else {
+                    snapshot.removedTeams.add(leaderId);
+                }
+            }
+
+            return snapshot;
+        }
+
+        /**
+         * 把较新的快照合并到这个尚未写入的快照上
+         */
+        DataSnapshot merge(DataSnapshot newer) {
+            if (newer.full) {
+                return newer;
+            }
+
+            for (UUID playerId : newer.removedRafts) {
+                rafts.remove(playerId);
+                if (!full) {
+                    removedRafts.add(playerId);
+                }
+            }
+            for (RaftEntry raft : newer.rafts.values()) {
+                rafts.put(raft.playerId, raft);
+                removedRafts.remove(raft.playerId);
+            }
+
+            for (UUID leaderId : newer.removedTeams) {
+                teams.remove(leaderId);
+                if (!full) {
+                    removedTeams.add(leaderId);
+                }
+            }
+            for (Map.Entry<UUID, List<UUID>> team : newer.teams.entrySet()) {
+                teams.put(team.getKey(), team.getValue());
+                removedTeams.remove(team.getKey());
+            }
+            return this;
+        }
+
+        static final class RaftEntry {
+            final UUID playerId;
+            final String worldName;
+            final double x;
+            final double y;
+            final double z;
+            final String name;
+
+            RaftEntry(UUID playerId, String worldName, double x, double y, double z, String name) {
+                this.playerId = playerId;
+                this.worldName = worldName;
+                this.x = x;
+                this.y = y;
+                this.z = z;
+                this.name = name;
+            }
+
+            // 位置或世界无效时返回 null
+            static RaftEntry of(UUID playerId, Location loc, String name) {
+                if (loc == null || loc.getWorld() == null) {
+                    return null;
+                }
+                return new RaftEntry(playerId, loc.getWorld().getName(), loc.getX(), loc.getY(), loc.getZ(), name);
+            }
+        }
     }
 
     /**
@@ -176,5 +631,7 @@ public class DataManager {
         public Map<UUID, Location> playerRafts = new HashMap<>();
         public Map<UUID, String> raftNames = new HashMap<>();
         public Map<UUID, UUID> teamMembers = new HashMap<>(); // 玩家ID -> 队长ID
+        public Set<UUID> removedRafts = new HashSet<>(); // 日志中删除的木筏
+        public boolean imported; // 数据来自其他存储，需要完整保存一次
     }
 }
\ No newline at end of file
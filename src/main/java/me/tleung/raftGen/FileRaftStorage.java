@@ -0,0 +1,225 @@
+package me.tleung.raftGen;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.Locale;
+import java.util.logging.Logger;
+import java.util.zip.CRC32;
+
+/**
+ * 单文件存储后端的共同部分
+ * 文件格式不能只改写其中一部分，所以保留一份与文件内容一致的内存模型，
+ * 增量修改先合并进模型，再把整个文件顺序写一次
+ *
+ * 写入过程：写临时文件并 fsync，把当前文件保留为备份，再原子替换目标文件
+ * 文件末尾附加一行校验和 "\n#crc32:xxxxxxxx\n"（YAML 中是注释，二进制读取时忽略），
+ * 读取时校验失败会自动改用最新的有效备份；
+ * 没有校验和的文件只在升级后第一次读取旧版本文件时接受，其他情况视为损坏
+ */
+abstract class FileRaftStorage implements RaftStorage {
+
+    private static final String CHECKSUM_PREFIX = "\n#crc32:";
+    private static final int TRAILER_LENGTH = CHECKSUM_PREFIX.length() + 8 + 1;
+
+    protected final File file;
+    protected final Logger logger;
+    // 保留的备份数量，备份在 backups/<文件名>.1 ~ .N，1 为最新
+    private final int backupCount;
+    private DataManager.DataSnapshot model;
+
+    protected FileRaftStorage(File file, int backupCount, Logger logger) {
+        this.file = file;
+        this.backupCount = Math.max(0, backupCount);
+        this.logger = logger;
+    }
+
+    protected abstract DataManager.DataSnapshot decode(byte[] data) throws IOException;
+
+    protected abstract byte[] encode(DataManager.DataSnapshot snapshot) throws IOException;
+
+    @Override
+    public boolean exists() {
+        return file.exists();
+    }
+
+    @Override
+    public DataManager.DataSnapshot load() throws IOException {
+        if (!file.exists()) {
+            model = DataManager.DataSnapshot.empty();
+            return model;
+        }
+
+        try {
+            // 还没有任何备份说明文件从未被这个版本保存过，可能是旧版本的文件
+            model = read(file, !hasBackupAfter(0));
+            return model;
+        } catch (IOException e) {
+            // 保留损坏的文件以便手动恢复，不让之后的保存覆盖它
+            File broken = new File(file.getParentFile(), file.getName() + ".broken-" + System.currentTimeMillis());
+            if (!file.renameTo(broken)) {
+                logger.severe("无法移动损坏的数据文件: " + file.getName());
+            }
+            logger.severe("读取 " + file.getName() + " 失败，已将文件移到 " + broken.getName() + ": " + e.getMessage());
+
+            for (int i = 1; i <= backupCount; i++) {
+                File backup = backupFile(i);
+                if (!backup.exists()) {
+                    continue;
+                }
+                try {
+                    // 第一次保存时旧版本的文件被保留为备份，之后它一直是最旧的那份
+                    model = read(backup, !hasBackupAfter(i));
+                    logger.warning("已从备份 " + backup.getName() + " 恢复数据，该备份之后保存的变更可能丢失");
+                    return model;
+                } catch (IOException backupError) {
+                    logger.warning("备份 " + backup.getName() + " 也无法读取: " + backupError.getMessage());
+                }
+            }
+
+            model = DataManager.DataSnapshot.empty();
+            throw new IOException("读取 " + file.getName() + " 失败，也没有可用的备份", e);
+        }
+    }
+
+    @Override
+    public void apply(DataManager.DataSnapshot changes) throws IOException {
+        // 完整快照替换整个模型，增量快照只修改变更的条目
+        model = changes.full || model == null ? changes : model.merge(changes);
+        writeAtomically(encode(model));
+    }
+
+    @Override
+    public void retire() {
+        File migrated = new File(file.getParentFile(), file.getName() + ".migrated");
+        if (file.exists() && !file.renameTo(migrated)) {
+            logger.warning("无法重命名旧数据文件: " + file.getName());
+        }
+    }
+
+    @Override
+    public void close() {
+    }
+
+    /**
+     * @param allowLegacy 是否接受没有校验和的旧版本文件
+     */
+    private DataManager.DataSnapshot read(File source, boolean allowLegacy) throws IOException {
+        byte[] data = Files.readAllBytes(source.toPath());
+        int length = data.length - TRAILER_LENGTH;
+        String trailer = length >= 0
+                ? new String(data, length, TRAILER_LENGTH, StandardCharsets.US_ASCII)
+                : "";
+
+        if (!trailer.startsWith(CHECKSUM_PREFIX) || !trailer.endsWith("\n")) {
+            // 旧版本保存的文件没有校验和；已经用新格式保存过之后，缺少校验和说明文件被截断了
+            if (!allowLegacy) {
+                throw new IOException("缺少校验和，文件可能已损坏: " + source.getName());
+            }
+            logger.info("读取没有校验和的旧版本文件: " + source.getName());
+            return decode(data);
+        }
+
+        long expected;
+        try {
+            expected = Long.parseLong(trailer.substring(CHECKSUM_PREFIX.length(), TRAILER_LENGTH - 1), 16);
+        } catch (NumberFormatException e) {
+            throw new IOException("校验和格式无效: " + source.getName());
+        }
+        byte[] payload = Arrays.copyOf(data, length);
+        if (checksum(payload) != expected) {
+            throw new IOException("校验和不匹配，文件已损坏: " + source.getName());
+        }
+        return decode(payload);
+    }
+
+    private void writeAtomically(byte[] payload) throws IOException {
+        Path target = file.toPath();
+        Path temp = new File(file.getParentFile(), file.getName() + ".tmp").toPath();
+        byte[] trailer = String.format(Locale.ROOT, "%s%08x\n", CHECKSUM_PREFIX, checksum(payload))
+                .getBytes(StandardCharsets.US_ASCII);
+
+        try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+            ByteBuffer[] buffers = {ByteBuffer.wrap(payload), ByteBuffer.wrap(trailer)};
+            while (buffers[1].hasRemaining()) {
+                channel.write(buffers);
+            }
+            channel.force(true);
+        }
+
+        rotateBackups();
+
+        try {
+            Files.move(temp, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        } catch (AtomicMoveNotSupportedException e) {
+            Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING);
+        }
+        syncDirectory(file.getParentFile().toPath());
+    }
+
+    // 把即将被替换的文件保留为最新备份，其余备份依次后移，超过数量的删除
+    private void rotateBackups() {
+        if (backupCount == 0 || !file.exists()) {
+            return;
+        }
+
+        try {
+            Files.createDirectories(backupFile(1).getParentFile().toPath());
+            Files.deleteIfExists(backupFile(backupCount).toPath());
+            for (int i = backupCount - 1; i >= 1; i--) {
+                Path from = backupFile(i).toPath();
+                if (Files.exists(from)) {
+                    Files.move(from, backupFile(i + 1).toPath(), StandardCopyOption.REPLACE_EXISTING);
+                }
+            }
+
+            // 文件只会被整体替换，不会原地修改，所以可以用硬链接代替复制
+            Path latest = backupFile(1).toPath();
+            try {
+                Files.createLink(latest, file.toPath());
+            } catch (IOException | UnsupportedOperationException e) {
+                Files.copy(file.toPath(), latest, StandardCopyOption.REPLACE_EXISTING);
+            }
+        } catch (IOException e) {
+            // 备份失败不影响本次保存
+            logger.warning("无法创建 " + file.getName() + " 的备份: " + e.getMessage());
+        }
+    }
+
+    // 是否存在编号大于 index 的备份
+    private boolean hasBackupAfter(int index) {
+        for (int i = index + 1; i <= backupCount; i++) {
+            if (backupFile(i).exists()) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private File backupFile(int index) {
+        return new File(new File(file.getParentFile(), "backups"), file.getName() + "." + index);
+    }
+
+    // 同步目录项，保证改名在断电后仍然有效；部分系统不支持打开目录，忽略即可
+    private static void syncDirectory(Path directory) {
+        try (FileChannel channel = FileChannel.open(directory, StandardOpenOption.READ)) {
+            channel.force(true);
+        } catch (IOException ignored) {
+        }
+    }
+
+    private static long checksum(byte[] data) {
+        CRC32 crc = new CRC32();
+        crc.update(data, 0, data.length);
+        return crc.getValue();
+    }
+}
\ No newline at end of file
@@ -0,0 +1,261 @@
+package me.tleung.raftGen;
+
+import org.bukkit.Bukkit;
+import org.bukkit.ChunkSnapshot;
+import org.bukkit.Location;
+import org.bukkit.Material;
+import org.bukkit.World;
+import org.bukkit.command.CommandSender;
+import org.bukkit.entity.Player;
+
+import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+
+/**
+ * 删除木筏时清除木筏周围的区域
+ * 木筏世界海平面以上原本只有空气，海平面上只有水，所以这个范围内的其他方块都是玩家放置的：
+ * 先在主线程异步加载区块并复制区块快照，在异步线程扫描快照找出这些方块，
+ * 再按区块交给 BlockEditQueue 在主线程分批移除（海平面上换成水，以上换成空气）
+ */
+final class RaftAreaClearer {
+
+    private static final int SEA_LEVEL = 62;
+
+    private final RaftGen plugin;
+    private final BlockEditQueue blockEdits;
+    private final Executor async;
+    private final int radius;
+    private final long reportIntervalMillis;
+
+    RaftAreaClearer(RaftGen plugin, BlockEditQueue blockEdits, int spacing) {
+        this.plugin = plugin;
+        this.blockEdits = blockEdits;
+        this.async = task -> Bukkit.getScheduler().runTaskAsynchronously(plugin, task);
+        // 不超过木筏间距的一半，不会碰到相邻槽位上的木筏
+        int maxRadius = Math.max(1, spacing / 2 - 1);
+        this.radius = Math.max(1, Math.min(maxRadius, plugin.getConfig().getInt("performance.raft-clear.radius", 48)));
+        this.reportIntervalMillis = Math.max(1, plugin.getConfig().getInt("performance.raft-clear.progress-interval", 5)) * 1000L;
+    }
+
+    int getRadius() {
+        return radius;
+    }
+
+    /**
+     * 清除以 center 为中心、水平半径为 radius 的区域
+     * @param otherRafts 附近其他木筏的中心，离其他木筏更近的方块不清除
+     * @param reporter 接收进度的玩家，可以为 null
+     * @return 完成后得到移除的方块数量，在主线程完成
+     */
+    CompletableFuture<Integer> clear(Location center, Collection<Location> otherRafts, CommandSender reporter) {
+        World world = center.getWorld();
+        Job job = new Job(world, center.getBlockX(), center.getBlockZ(), otherRafts, reporter);
+        job.loadSnapshots();
+        return job.result;
+    }
+
+    private final class Job {
+        private final World world;
+        private final int centerX;
+        private final int centerZ;
+        private final int[] others;
+        private final CommandSender reporter;
+        private final int minHeight;
+        private final int maxHeight;
+        private final CompletableFuture<Integer> result = new CompletableFuture<>();
+
+        private int totalBlocks;
+        private int removedBlocks;
+        private int changedBlocks;
+        private int pendingChunks;
+        private long lastReportTime;
+
+        Job(World world, int centerX, int centerZ, Collection<Location> otherRafts, CommandSender reporter) {
+            this.world = world;
+            this.centerX = centerX;
+            this.centerZ = centerZ;
+            this.reporter = reporter;
+            this.minHeight = world.getMinHeight();
+            this.maxHeight = world.getMaxHeight();
+
+            // 只保留可能与清除范围重叠的木筏，x 和 z 依次存放
+            List<Location> nearby = new ArrayList<>();
+            for (Location other : otherRafts) {
+                if (world.equals(other.getWorld())
+                        && Math.abs(other.getBlockX() - centerX) <= 2 * radius
+                        && Math.abs(other.getBlockZ() - centerZ) <= 2 * radius) {
+                    nearby.add(other);
+                }
+            }
+            this.others = new int[nearby.size() * 2];
+            for (int i = 0; i < nearby.size(); i++) {
+                others[2 * i] = nearby.get(i).getBlockX();
+                others[2 * i + 1] = nearby.get(i).getBlockZ();
+            }
+        }
+
+        // 主线程：异步加载范围内已生成的区块，加载完成后复制快照；未生成的区块里不会有玩家的方块
+        void loadSnapshots() {
+            int minChunkX = (centerX - radius) >> 4;
+            int maxChunkX = (centerX + radius) >> 4;
+            int minChunkZ = (centerZ - radius) >> 4;
+            int maxChunkZ = (centerZ + radius) >> 4;
+
+            List<CompletableFuture<ChunkSnapshot>> snapshots = new ArrayList<>();
+            for (int chunkX = minChunkX; chunkX <= maxChunkX; chunkX++) {
+                for (int chunkZ = minChunkZ; chunkZ <= maxChunkZ; chunkZ++) {
+                    if (world.isChunkGenerated(chunkX, chunkZ)) {
+                        snapshots.add(world.getChunkAtAsync(chunkX, chunkZ, false)
+                                .thenApply(chunk -> chunk != null ? chunk.getChunkSnapshot(false, false, false) : null));
+                    }
+                }
+            }
+
+            report("§e正在扫描木筏区域: " + snapshots.size() + " 个区块，半径 " + radius + " 格");
+            CompletableFuture.allOf(snapshots.toArray(new CompletableFuture[0]))
+                    .thenApplyAsync(ignored -> scan(snapshots), async)
+                    .whenComplete((found, error) -> runOnMainThread(() -> {
+                        if (error != null) {
+                            plugin.getLogger().warning("扫描木筏区域失败: " + error.getMessage());
+                            result.completeExceptionally(error);
+                        } else {
+                            applyRemovals(found);
+                        }
+                    }));
+        }
+
+        // 异步线程：找出每个区块内需要移除的方块，位置按 x, y, z 依次存放
+        Map<Long, int[]> scan(List<CompletableFuture<ChunkSnapshot>> snapshots) {
+            Map<Long, int[]> found = new LinkedHashMap<>();
+            long radiusSquared = (long) radius * radius;
+            int firstSection = (SEA_LEVEL - minHeight) >> 4;
+            int lastSection = (maxHeight - 1 - minHeight) >> 4;
+
+            for (CompletableFuture<ChunkSnapshot> future : snapshots) {
+                ChunkSnapshot snapshot = future.join();
+                if (snapshot == null) {
+                    continue;
+                }
+                int baseX = snapshot.getX() << 4;
+                int baseZ = snapshot.getZ() << 4;
+                int[] positions = new int[96];
+                int count = 0;
+
+                for (int section = firstSection; section <= lastSection; section++) {
+                    // 空的区块段只有空气，整段跳过
+                    if (snapshot.isSectionEmpty(section)) {
+                        continue;
+                    }
+                    int fromY = Math.max(SEA_LEVEL, minHeight + (section << 4));
+                    int toY = Math.min(maxHeight - 1, minHeight + (section << 4) + 15);
+
+                    for (int x = 0; x < 16; x++) {
+                        for (int z = 0; z < 16; z++) {
+                            int blockX = baseX + x;
+                            int blockZ = baseZ + z;
+                            if (!isInArea(blockX, blockZ, radiusSquared)) {
+                                continue;
+                            }
+                            for (int y = fromY; y <= toY; y++) {
+                                Material type = snapshot.getBlockType(x, y, z);
+                                if (type.isAir() || (y == SEA_LEVEL && type == Material.WATER)) {
+                                    continue;
+                                }
+                                if (count * 3 == positions.length) {
+                                    positions = Arrays.copyOf(positions, positions.length * 2);
+                                }
+                                positions[count * 3] = blockX;
+                                positions[count * 3 + 1] = y;
+                                positions[count * 3 + 2] = blockZ;
+                                count++;
+                            }
+                        }
+                    }
+                }
+
+                if (count > 0) {
+                    found.put(((long) snapshot.getX() << 32) | (snapshot.getZ() & 0xFFFFFFFFL),
+                            Arrays.copyOf(positions, count * 3));
+                }
+            }
+            return found;
+        }
+
+        // 在清除半径内，且离这个木筏不比离其他木筏远
+        private boolean isInArea(int blockX, int blockZ, long radiusSquared) {
+            long dx = blockX - centerX;
+            long dz = blockZ - centerZ;
+            long distance = dx * dx + dz * dz;
+            if (distance > radiusSquared) {
+                return false;
+            }
+            for (int i = 0; i < others.length; i += 2) {
+                long otherDx = blockX - others[i];
+                long otherDz = blockZ - others[i + 1];
+                if (otherDx * otherDx + otherDz * otherDz < distance) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        // 主线程：每个区块一批修改，完成一个区块更新一次进度
+        void applyRemovals(Map<Long, int[]> found) {
+            for (int[] positions : found.values()) {
+                totalBlocks += positions.length / 3;
+            }
+            if (totalBlocks == 0) {
+                report("§a木筏区域已清除: 没有需要移除的方块");
+                result.complete(0);
+                return;
+            }
+
+            report("§e找到 " + totalBlocks + " 个方块 (" + found.size() + " 个区块)，开始清除...");
+            lastReportTime = System.currentTimeMillis();
+            pendingChunks = found.size();
+            for (int[] positions : found.values()) {
+                BlockEditQueue.Batch batch = blockEdits.batch(world);
+                for (int i = 0; i < positions.length; i += 3) {
+                    int y = positions[i + 1];
+                    batch.set(positions[i], y, positions[i + 2], y == SEA_LEVEL ? Material.WATER : Material.AIR);
+                }
+                int chunkBlocks = positions.length / 3;
+                batch.submit().thenAccept(changed -> onChunkCleared(chunkBlocks, changed));
+            }
+        }
+
+        private void onChunkCleared(int chunkBlocks, int changed) {
+            removedBlocks += chunkBlocks;
+            changedBlocks += changed;
+            if (--pendingChunks == 0) {
+                report("§a木筏区域清除完成: 移除了 " + changedBlocks + " 个方块");
+                result.complete(changedBlocks);
+                return;
+            }
+
+            long now = System.currentTimeMillis();
+            if (now - lastReportTime >= reportIntervalMillis) {
+                lastReportTime = now;
+                report(String.format("§e清除木筏区域: %d/%d (%.1f%%)",
+                        removedBlocks, totalBlocks, removedBlocks * 100.0 / totalBlocks));
+            }
+        }
+
+        private void report(String message) {
+            // 进度总是写入日志，发起删除的玩家在线时同时发送给玩家
+            plugin.getLogger().info(message.replaceAll("§.", ""));
+            if (reporter instanceof Player && ((Player) reporter).isOnline()) {
+                reporter.sendMessage(message);
+            }
+        }
+
+        private void runOnMainThread(Runnable action) {
+            if (Bukkit.isPrimaryThread()) {
+                action.run();
+            } else if (plugin.isEnabled()) {
+                Bukkit.getScheduler().runTask(plugin, action);
+            }
+        }
+    }
+}
\ No newline at end of file
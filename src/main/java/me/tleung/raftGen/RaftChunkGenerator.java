@@ -1,5 +1,13 @@
 package me.tleung.raftGen;
 
+import me.tleung.raftGen.generator.ChunkHeightmap;
+import me.tleung.raftGen.generator.ChunkHeightmapCache;
+import me.tleung.raftGen.generator.GeneratorSettings;
+import me.tleung.raftGen.generator.HeightLattice;
+import me.tleung.raftGen.generator.NoiseSampler;
+import me.tleung.raftGen.generator.RegionNoiseCache;
+import me.tleung.raftGen.noise.ColumnRandom;
+import me.tleung.raftGen.noise.GradientNoise;
 import org.bukkit.Material;
 import org.bukkit.World;
 import org.bukkit.block.Biome;
@@ -8,120 +16,110 @@ import org.bukkit.generator.WorldInfo;
 
 import java.util.Random;
 
+/**
+ * 木筏世界的海洋地形生成器
+ * Paper 会在多个工作线程上并行调用各个生成阶段，因此这里的所有阶段都必须可重入：
+ * 配置只通过不可变快照读取，临时缓冲区按线程分配，共享的缓存自身保证线程安全
+ */
 public class RaftChunkGenerator extends ChunkGenerator {
 
-    private RaftGen plugin;
+    // generateNoise 与 generateSurface 之间共享的海底高度图
+    private static final int HEIGHTMAP_CACHE_SIZE = 1024;
+
+    // 每个生成线程各自复用的高度格点缓冲区
+    private static final ThreadLocal<HeightLattice> LATTICE_BUFFER = ThreadLocal.withInitial(HeightLattice::new);
+
+    // 每列确定性随机数，不使用服务器传入的 Random，使区块内容只取决于种子和坐标
+    private static final ThreadLocal<ColumnRandom> COLUMN_RANDOM = ThreadLocal.withInitial(ColumnRandom::new);
+    private static final long TERRAIN_SALT = 0x7E22A1L;
+    private static final long SURFACE_SALT = 0x5F0CA5L;
+    private static final long BEDROCK_SALT = 0xB3D20CL;
+
+    private volatile RaftGen plugin;
+    private final ChunkHeightmapCache heightmapCache = new ChunkHeightmapCache(HEIGHTMAP_CACHE_SIZE);
+    private volatile SamplingState samplingState = new SamplingState(GeneratorSettings.defaults());
 
     public RaftChunkGenerator() {
     }
 
     public RaftChunkGenerator(RaftGen plugin) {
-        this.plugin = plugin;
+        setPlugin(plugin);
+    }
+
+    /**
+     * 不依赖插件配置，直接使用给定的配置快照（例如基准测试）
+     */
+    public RaftChunkGenerator(GeneratorSettings settings) {
+        this.samplingState = new SamplingState(settings);
     }
 
     public void setPlugin(RaftGen plugin) {
         this.plugin = plugin;
+        reloadSettings();
     }
 
-    // 檢查是否在木筏範圍內 - 保留此方法供RaftManager使用
-    public boolean isInRaftArea(int worldX, int worldZ) {
-        int spacing = 200;
-        int size = 3;
+    /**
+     * 重新读取配置，生成配置快照并替换噪声缓存
+     * 正在生成的区块继续使用旧快照，之后的区块使用新快照
+     */
+    public void reloadSettings() {
+        RaftGen current = plugin;
+        if (current == null) {
+            return;
+        }
+        samplingState = new SamplingState(GeneratorSettings.fromConfig(current.getConfig(), current.getLogger()));
+    }
 
-        for (int i = 0; i < 100; i++) {
-            int centerX = i * spacing;
-            int centerZ = i * spacing;
+    public GeneratorSettings getSettings() {
+        return samplingState.settings;
+    }
 
-            if (worldX >= centerX - 1 && worldX <= centerX + 1 &&
-                    worldZ >= centerZ - 1 && worldZ <= centerZ + 1) {
-                return true;
-            }
+    /**
+     * 大陆噪声区域缓存，用于统计命中率
+     */
+    public RegionNoiseCache getContinentCache() {
+        return samplingState.continentCache;
+    }
+
+    /**
+     * 地形选择器区域缓存，用于统计命中率
+     */
+    public RegionNoiseCache getSelectorCache() {
+        return samplingState.selectorCache;
+    }
+
+    // 檢查是否在已有木筏的範圍內 - 使用 RaftManager 的空間查詢，O(1)，只在主線程調用
+    public boolean isInRaftArea(int worldX, int worldZ) {
+        RaftManager raftManager = plugin != null ? plugin.getRaftManager() : null;
+        if (raftManager == null) {
+            return false;
         }
-        return false;
+        return raftManager.getSpatialLookup().isInRaftArea(raftManager.getRaftWorld(), worldX, worldZ);
     }
 
-    // 獲取木筏中心位置 - 保留此方法供RaftManager使用
+    // 獲取離方塊最近的木筏槽位中心 - 直接按木筏間距計算，O(1)
     public int[] getNearestRaftCenter(int worldX, int worldZ) {
-        int spacing = 200;
-        int minDistance = Integer.MAX_VALUE;
-        int[] nearestCenter = new int[]{0, 0};
-
-        for (int i = 0; i < 100; i++) {
-            int centerX = i * spacing;
-            int centerZ = i * spacing;
-
-            int distance = (int) Math.sqrt(Math.pow(worldX - centerX, 2) + Math.pow(worldZ - centerZ, 2));
-            if (distance < minDistance) {
-                minDistance = distance;
-                nearestCenter[0] = centerX;
-                nearestCenter[1] = centerZ;
-            }
+        RaftManager raftManager = plugin != null ? plugin.getRaftManager() : null;
+        if (raftManager != null) {
+            return raftManager.getSpatialLookup().getNearestSlotCenter(worldX, worldZ);
         }
 
-        return nearestCenter;
+        // RaftManager 尚未就绪，按配置快照中的木筏間距計算
+        int spacing = samplingState.settings.getRaftSpacing();
+        return new int[]{
+                (int) Math.floorDiv(worldX + (long) (spacing / 2), spacing) * spacing,
+                (int) Math.floorDiv(worldZ + (long) (spacing / 2), spacing) * spacing
+        };
     }
 
-    // 改进的平滑Perlin噪声函数
+    // 改进的平滑Perlin噪声函数 - 使用无状态哈希梯度，不再为每个网格点创建 Random
     private double getSmoothPerlinNoise(int x, int z, double frequency, long seed) {
-        // 使用网格化的方法创造更平滑的噪声
-        double xf = x * frequency;
-        double zf = z * frequency;
-
-        // 网格点
-        int x0 = (int) Math.floor(xf);
-        int x1 = x0 + 1;
-        int z0 = (int) Math.floor(zf);
-        int z1 = z0 + 1;
-
-        // 小数部分
-        double xs = xf - x0;
-        double zs = zf - z0;
-
-        // 使用五次多项式曲线进行更平滑的插值
-        double fadeX = xs * xs * xs * (xs * (xs * 6 - 15) + 10);
-        double fadeZ = zs * zs * zs * (zs * (zs * 6 - 15) + 10);
-
-        // 网格点上的随机梯度
-        Random rand00 = new Random(seed + x0 * 1619L + z0 * 31337L);
-        double grad00 = rand00.nextDouble() * 2 - 1;
-
-        Random rand10 = new Random(seed + x1 * 1619L + z0 * 31337L);
-        double grad10 = rand10.nextDouble() * 2 - 1;
-
-        Random rand01 = new Random(seed + x0 * 1619L + z1 * 31337L);
-        double grad01 = rand01.nextDouble() * 2 - 1;
-
-        Random rand11 = new Random(seed + x1 * 1619L + z1 * 31337L);
-        double grad11 = rand11.nextDouble() * 2 - 1;
-
-        // 双线性插值
-        double n00 = grad00 * (xs);
-        double n10 = grad10 * (xs - 1);
-        double n01 = grad01 * (xs);
-        double n11 = grad11 * (xs - 1);
-
-        double nx0 = n00 + fadeX * (n10 - n00);
-        double nx1 = n01 + fadeX * (n11 - n01);
-
-        return nx0 + fadeZ * (nx1 - nx0);
+        return GradientNoise.sample(x, z, frequency, seed);
     }
 
     // 平滑的分形布朗运动 - 降低octaves数量减少极端值
     private double getSmoothFBM(int x, int z, double frequency, int octaves, double lacunarity, double gain, long seed) {
-        double value = 0.0;
-        double amplitude = 1.0;
-        double maxAmplitude = 0.0;
-
-        for (int i = 0; i < octaves; i++) {
-            double noise = getSmoothPerlinNoise(x, z, frequency, seed + i * 1000);
-            value += noise * amplitude;
-            maxAmplitude += amplitude;
-            frequency *= lacunarity;
-            amplitude *= gain;
-        }
-
-        // 确保值在合理范围内
-        return Math.max(-1.0, Math.min(1.0, value / maxAmplitude));
+        return GradientNoise.fbm(x, z, frequency, octaves, lacunarity, gain, seed);
     }
 
     // 超平滑的大陆噪声 - 降低振幅和octaves数量
@@ -135,8 +133,8 @@ public class RaftChunkGenerator extends ChunkGenerator {
     }
 
     // 平滑的区域基础高度 - 限制高度范围
-    private int getSmoothRegionalBaseHeight(int x, int z, long seed) {
-        double continentNoise = getSmoothContinentNoise(x, z, seed);
+    private int getSmoothRegionalBaseHeight(NoiseSampler continent, int x, int z) {
+        double continentNoise = continent.sample(x, z);
 
         // 使用平滑的映射函数
         double normalizedNoise = (continentNoise + 30) / 60.0; // 调整映射范围
@@ -193,45 +191,81 @@ public class RaftChunkGenerator extends ChunkGenerator {
     public void generateNoise(WorldInfo worldInfo, Random random, int chunkX, int chunkZ, ChunkData chunkData) {
         int seaLevel = 62;
         long worldSeed = worldInfo.getSeed();
+        SamplingState state = samplingState;
+        ChunkHeightmap heightmap = new ChunkHeightmap();
+
+        // 大陆噪声与地形选择器变化缓慢，可按配置改为粗网格采样后插值
+        NoiseSampler continent = (sampleX, sampleZ) -> getSmoothContinentNoise(sampleX, sampleZ, worldSeed);
+        NoiseSampler selector = (sampleX, sampleZ) -> getSmoothTerrainSelector(sampleX, sampleZ, worldSeed + 110000);
+        if (state.settings.isInterpolatedSampling()) {
+            // 粗网格按 128x128 区域缓存，相邻区块共用同一份采样结果
+            continent = state.continentCache.view(worldSeed, continent);
+            selector = state.selectorCache.view(worldSeed + 110000, selector);
+        }
+        NoiseSampler continentLayer = continent;
+
+        // 整个区块共用一份粗粒度高度格点，代替逐列重新计算相邻高度
+        HeightLattice lattice = LATTICE_BUFFER.get().fill(chunkX, chunkZ, (sampleX, sampleZ) -> estimateColumnHeight(continentLayer, sampleX, sampleZ, worldSeed));
+
+        ColumnRandom columnRandom = COLUMN_RANDOM.get();
 
         for (int x = 0; x < 16; x++) {
             for (int z = 0; z < 16; z++) {
                 int worldX = chunkX * 16 + x;
                 int worldZ = chunkZ * 16 + z;
+                columnRandom.reset(worldSeed, worldX, worldZ, TERRAIN_SALT);
 
                 // 移除木筏区域检查，只生成海洋地形
-                generateSmoothOceanTerrain(chunkData, x, z, worldX, worldZ, seaLevel, random, worldSeed);
+                int seaBedHeight = generateSmoothOceanTerrain(chunkData, lattice, continent, selector, x, z, worldX, worldZ, seaLevel, columnRandom, worldSeed);
+                heightmap.set(x, z, seaBedHeight);
             }
         }
+
+        // 保存高度图，供表面阶段直接读取
+        heightmapCache.put(worldInfo.getUID(), chunkX, chunkZ, heightmap);
     }
 
     @Override
     public void generateSurface(WorldInfo worldInfo, Random random, int chunkX, int chunkZ, ChunkData chunkData) {
         long worldSeed = worldInfo.getSeed();
 
+        // 表面阶段是最后一个读取高度图的阶段，取出后即可释放
+        ChunkHeightmap heightmap = heightmapCache.remove(worldInfo.getUID(), chunkX, chunkZ);
+        if (heightmap == null) {
+            heightmap = ChunkHeightmap.scan(chunkData, 62, 5);
+        }
+
+        ColumnRandom columnRandom = COLUMN_RANDOM.get();
+
         for (int x = 0; x < 16; x++) {
             for (int z = 0; z < 16; z++) {
                 int worldX = chunkX * 16 + x;
                 int worldZ = chunkZ * 16 + z;
+                columnRandom.reset(worldSeed, worldX, worldZ, SURFACE_SALT);
 
-                generateSeaBedDetails(chunkData, x, z, worldX, worldZ, random, worldSeed);
-                generateSmoothOceanFeatures(chunkData, x, z, worldX, worldZ, random, worldSeed);
+                generateSeaBedDetails(chunkData, heightmap, x, z, worldX, worldZ, columnRandom, worldSeed);
+                generateSmoothOceanFeatures(chunkData, heightmap, x, z, worldX, worldZ, columnRandom, worldSeed);
 
                 // 添加海洋生物标记生成
-                generateMarineLifeMarkers(chunkData, x, z, worldX, worldZ, random, worldSeed);
+                generateMarineLifeMarkers(chunkData, heightmap, x, z, worldX, worldZ, columnRandom, worldSeed);
             }
         }
     }
 
     @Override
     public void generateBedrock(WorldInfo worldInfo, Random random, int chunkX, int chunkZ, ChunkData chunkData) {
+        long worldSeed = worldInfo.getSeed();
+        ColumnRandom columnRandom = COLUMN_RANDOM.get();
+
         for (int x = 0; x < 16; x++) {
             for (int z = 0; z < 16; z++) {
+                columnRandom.reset(worldSeed, chunkX * 16 + x, chunkZ * 16 + z, BEDROCK_SALT);
+
                 chunkData.setBlock(x, 0, z, Material.BEDROCK);
-                if (random.nextDouble() < 0.7) {
+                if (columnRandom.nextDouble() < 0.7) {
                     chunkData.setBlock(x, 1, z, Material.BEDROCK);
                 }
-                if (random.nextDouble() < 0.3) {
+                if (columnRandom.nextDouble() < 0.3) {
                     chunkData.setBlock(x, 2, z, Material.BEDROCK);
                 }
             }
@@ -244,9 +278,10 @@ public class RaftChunkGenerator extends ChunkGenerator {
     }
 
     // 平滑的海洋地形生成 - 添加柱状结构检测和修复
-    private void generateSmoothOceanTerrain(ChunkData chunkData, int x, int z, int worldX, int worldZ, int seaLevel, Random random, long worldSeed) {
+    private int generateSmoothOceanTerrain(ChunkData chunkData, HeightLattice lattice, NoiseSampler continent, NoiseSampler selector,
+                                           int x, int z, int worldX, int worldZ, int seaLevel, Random random, long worldSeed) {
         // 获取平滑的区域基础高度
-        int regionalBaseHeight = getSmoothRegionalBaseHeight(worldX, worldZ, worldSeed);
+        int regionalBaseHeight = getSmoothRegionalBaseHeight(continent, worldX, worldZ);
 
         // 获取平滑的局部地形变化
         double localTerrain = getSmoothLocalTerrainNoise(worldX, worldZ, worldSeed + 70000);
@@ -259,7 +294,7 @@ public class RaftChunkGenerator extends ChunkGenerator {
         double canyon = getSmoothCanyonNoise(worldX, worldZ, worldSeed + 100000);
 
         // 获取平滑的地形选择器
-        double terrainSelector = getSmoothTerrainSelector(worldX, worldZ, worldSeed + 110000);
+        double terrainSelector = selector.sample(worldX, worldZ);
 
         // 使用平滑的混合函数计算最终高度
         double finalHeight;
@@ -282,14 +317,15 @@ public class RaftChunkGenerator extends ChunkGenerator {
         seaBedHeight = Math.max(5, Math.min(45, seaBedHeight)); // 从-15,55调整到5,45
 
         // 检查并修复可能的柱状结构
-        seaBedHeight = fixPillarStructures(chunkData, x, z, worldX, worldZ, seaBedHeight, seaLevel, random);
+        seaBedHeight = fixPillarStructures(lattice, worldX, worldZ, seaBedHeight);
 
         // 生成地形层
         generateSmoothTerrainLayers(chunkData, x, z, worldX, worldZ, seaBedHeight, seaLevel, random, worldSeed);
+        return seaBedHeight;
     }
 
-    // 修复柱状结构的方法
-    private int fixPillarStructures(ChunkData chunkData, int x, int z, int worldX, int worldZ, int seaBedHeight, int seaLevel, Random random) {
+    // 修复柱状结构的方法 - 从区块高度格点读取相邻高度
+    private int fixPillarStructures(HeightLattice lattice, int worldX, int worldZ, int seaBedHeight) {
         // 检查周围区块的高度，避免突然的高度变化
         int smoothedHeight = seaBedHeight;
 
@@ -297,20 +333,14 @@ public class RaftChunkGenerator extends ChunkGenerator {
         int neighborCount = 0;
         int totalHeight = 0;
 
-        // 检查相邻的虚拟位置（简化版本）
         for (int dx = -1; dx <= 1; dx++) {
             for (int dz = -1; dz <= 1; dz++) {
                 if (dx == 0 && dz == 0) continue;
 
-                // 使用噪声函数估算相邻位置的高度
-                int neighborX = worldX + dx * 4; // 使用更大的步长
-                int neighborZ = worldZ + dz * 4;
-
-                int neighborRegionalHeight = getSmoothRegionalBaseHeight(neighborX, neighborZ, chunkData.getMaxHeight());
-                double neighborLocalTerrain = getSmoothLocalTerrainNoise(neighborX, neighborZ, chunkData.getMaxHeight() + 70000);
-                double neighborDetail = getSmoothDetailNoise(neighborX, neighborZ, chunkData.getMaxHeight() + 80000);
+                int neighborX = worldX + dx * HeightLattice.STEP; // 使用更大的步长
+                int neighborZ = worldZ + dz * HeightLattice.STEP;
 
-                int estimatedNeighborHeight = neighborRegionalHeight + (int)(neighborLocalTerrain * 0.3) + (int)(neighborDetail * 0.1);
+                int estimatedNeighborHeight = (int) lattice.sample(neighborX, neighborZ);
                 estimatedNeighborHeight = Math.max(5, Math.min(45, estimatedNeighborHeight));
 
                 neighborCount++;
@@ -329,6 +359,16 @@ public class RaftChunkGenerator extends ChunkGenerator {
         return smoothedHeight;
     }
 
+    // 使用噪声函数估算某一列的高度（只包含基础、局部和细节层）
+    private double estimateColumnHeight(NoiseSampler continent, int x, int z, long worldSeed) {
+        int regionalHeight = getSmoothRegionalBaseHeight(continent, x, z);
+        double localTerrain = getSmoothLocalTerrainNoise(x, z, worldSeed + 70000);
+        double detail = getSmoothDetailNoise(x, z, worldSeed + 80000);
+
+        int estimatedHeight = regionalHeight + (int) (localTerrain * 0.3) + (int) (detail * 0.1);
+        return Math.max(5, Math.min(45, estimatedHeight));
+    }
+
     // 平滑的步进函数
     private double smoothStep(double x) {
         return x * x * (3 - 2 * x);
@@ -441,18 +481,11 @@ public class RaftChunkGenerator extends ChunkGenerator {
     }
 
     // 平滑的海洋特徵生成 - 降低特征生成概率
-    private void generateSmoothOceanFeatures(ChunkData chunkData, int x, int z, int worldX, int worldZ, Random random, long worldSeed) {
+    private void generateSmoothOceanFeatures(ChunkData chunkData, ChunkHeightmap heightmap, int x, int z, int worldX, int worldZ, Random random, long worldSeed) {
         int seaLevel = 62;
 
-        // 找到海底表面
-        int surfaceY = -1;
-        for (int y = seaLevel - 1; y >= 5; y--) {
-            Material blockType = chunkData.getType(x, y, z);
-            if (blockType == Material.SAND || blockType == Material.GRAVEL || blockType == Material.CLAY || blockType == Material.STONE) {
-                surfaceY = y;
-                break;
-            }
-        }
+        // 从高度图读取海底表面
+        int surfaceY = heightmap.get(x, z);
 
         if (surfaceY == -1 || surfaceY >= seaLevel - 1) return;
 
@@ -467,6 +500,8 @@ public class RaftChunkGenerator extends ChunkGenerator {
                 if (surfaceY + i < seaLevel - 1) {
                     Material material = getSmoothMountainMaterial(surfaceY + i, random);
                     chunkData.setBlock(x, surfaceY + i, z, material);
+                    // 山脉抬高了海底表面
+                    heightmap.set(x, z, surfaceY + i);
                 }
             }
         } else if (featureNoise < -0.5 && random.nextDouble() < smoothProbability(featureNoise, -0.5, 0.15)) { // 提高阈值，降低概率
@@ -493,18 +528,11 @@ public class RaftChunkGenerator extends ChunkGenerator {
     }
 
     // 海洋生物标记生成
-    private void generateMarineLifeMarkers(ChunkData chunkData, int x, int z, int worldX, int worldZ, Random random, long worldSeed) {
+    private void generateMarineLifeMarkers(ChunkData chunkData, ChunkHeightmap heightmap, int x, int z, int worldX, int worldZ, Random random, long worldSeed) {
         int seaLevel = 62;
 
-        // 找到海底表面
-        int surfaceY = -1;
-        for (int y = seaLevel - 1; y >= 5; y--) {
-            Material blockType = chunkData.getType(x, y, z);
-            if (blockType == Material.SAND || blockType == Material.GRAVEL || blockType == Material.CLAY || blockType == Material.STONE) {
-                surfaceY = y;
-                break;
-            }
-        }
+        // 从高度图读取海底表面
+        int surfaceY = heightmap.get(x, z);
 
         if (surfaceY == -1 || surfaceY >= seaLevel - 1) return;
 
@@ -612,20 +640,13 @@ public class RaftChunkGenerator extends ChunkGenerator {
     }
 
     // 以下方法保持不变...
-    private void generateSeaBedDetails(ChunkData chunkData, int x, int z, int worldX, int worldZ, Random random, long worldSeed) {
+    private void generateSeaBedDetails(ChunkData chunkData, ChunkHeightmap heightmap, int x, int z, int worldX, int worldZ, Random random, long worldSeed) {
         int seaLevel = 62;
-        int seaBedY = -1;
-        for (int y = seaLevel - 1; y >= 5; y--) {
-            Material blockType = chunkData.getType(x, y, z);
-            if (blockType == Material.SAND || blockType == Material.GRAVEL || blockType == Material.CLAY || blockType == Material.STONE) {
-                seaBedY = y;
-                break;
-            }
-        }
+        int seaBedY = heightmap.get(x, z);
 
         if (seaBedY == -1 || seaBedY >= seaLevel - 1) return;
 
-        double slope = calculateSmoothSlope(chunkData, x, z, seaBedY);
+        double slope = calculateSmoothSlope(heightmap, x, z, seaBedY);
 
         if (slope < 0.2) {
             if (random.nextDouble() < 0.7) {
@@ -641,7 +662,7 @@ public class RaftChunkGenerator extends ChunkGenerator {
     }
 
     // 平滑的坡度计算
-    private double calculateSmoothSlope(ChunkData chunkData, int x, int z, int centerY) {
+    private double calculateSmoothSlope(ChunkHeightmap heightmap, int x, int z, int centerY) {
         double totalSlope = 0.0;
         int samples = 0;
 
@@ -652,17 +673,10 @@ public class RaftChunkGenerator extends ChunkGenerator {
                 int checkX = Math.max(0, Math.min(15, x + dx));
                 int checkZ = Math.max(0, Math.min(15, z + dz));
 
-                // 查找周围区块的表面高度
-                int neighborY = -1;
-                for (int y = centerY + 10; y >= centerY - 10; y--) {
-                    Material blockType = chunkData.getType(checkX, y, checkZ);
-                    if (blockType == Material.SAND || blockType == Material.GRAVEL || blockType == Material.CLAY || blockType == Material.STONE) {
-                        neighborY = y;
-                        break;
-                    }
-                }
+                // 从高度图读取相邻表面高度，只统计上下 10 格以内的邻居
+                int neighborY = heightmap.get(checkX, checkZ);
 
-                if (neighborY != -1) {
+                if (neighborY != -1 && Math.abs(neighborY - centerY) <= 10) {
                     double slope = Math.abs(neighborY - centerY) / Math.sqrt(dx * dx + dz * dz);
                     totalSlope += slope;
                     samples++;
@@ -709,6 +723,13 @@ public class RaftChunkGenerator extends ChunkGenerator {
         }
     }
 
+    // 所有生成阶段都是可重入的，允许服务器在多个线程上并行生成区块
+    // 依据见 src/jmh 中的 GeneratorDeterminismCheck：多线程共用生成器的结果与单线程逐块相同
+    @Override
+    public boolean isParallelCapable() {
+        return true;
+    }
+
     @Override
     public boolean shouldGenerateNoise() {
         return true;
@@ -743,4 +764,17 @@ public class RaftChunkGenerator extends ChunkGenerator {
     public boolean shouldGenerateStructures() {
         return false;
     }
+
+    // 配置快照与对应的噪声缓存，整体替换以保证两者一致
+    private static final class SamplingState {
+        private final GeneratorSettings settings;
+        private final RegionNoiseCache continentCache;
+        private final RegionNoiseCache selectorCache;
+
+        private SamplingState(GeneratorSettings settings) {
+            this.settings = settings;
+            this.continentCache = new RegionNoiseCache(settings.getRegionCacheSize(), settings.getSamplingStep());
+            this.selectorCache = new RegionNoiseCache(settings.getRegionCacheSize(), settings.getSamplingStep());
+        }
+    }
 }
\ No newline at end of file
@@ -11,6 +11,8 @@ import org.bukkit.entity.Player;
 import org.bukkit.event.EventHandler;
 import org.bukkit.event.Listener;
 import org.bukkit.event.block.BlockPlaceEvent;
+import org.bukkit.event.player.AsyncPlayerPreLoginEvent;
+import org.bukkit.event.player.PlayerQuitEvent;
 import org.bukkit.generator.ChunkGenerator;
 import org.bukkit.plugin.java.JavaPlugin;
 
@@ -57,6 +59,11 @@ public class RaftGen extends JavaPlugin implements Listener {
         if (raftManager != null) {
             raftManager.startCleanupTask();
             raftManager.startAutoSave(); // 啟動自動保存
+
+            // 繼續上次未完成的區塊預生成
+            if (getConfig().getBoolean("performance.pregen.resume-on-startup", true)) {
+                raftManager.getChunkPregenerator().resumeIfPending();
+            }
         }
 
         getLogger().info("§a木筏生成插件已啟用!");
@@ -87,7 +94,11 @@ public class RaftGen extends JavaPlugin implements Listener {
     public void onDisable() {
         // 插件禁用時保存數據
         if (raftManager != null) {
+            raftManager.getChunkPregenerator().shutdown();
+            // 先完成排隊的方塊修改，刪除木筏的回調會移除對應的數據
+            raftManager.flushBlockEdits();
             raftManager.saveData();
+            raftManager.shutdownPersistence();
             getLogger().info("§a木筏數據已保存");
         }
 
@@ -241,6 +252,9 @@ public class RaftGen extends JavaPlugin implements Listener {
                 case "diagnose":
                     handleDiagnoseCommand(sender);
                     break;
+                case "pregen":
+                    handlePregenCommand(sender, args);
+                    break;
                 default:
                     sender.sendMessage("§c未知指令! 使用 §a/raft help §c查看可用指令");
             }
@@ -513,11 +527,79 @@ public class RaftGen extends JavaPlugin implements Listener {
             return;
         }
 
-        raftManager.saveData();
+        raftManager.saveAllData();
         sender.sendMessage("§a木筏數據已手動保存!");
         getLogger().info("管理員手動保存了木筏數據");
     }
 
+    private void handlePregenCommand(CommandSender sender, String[] args) {
+        if (!sender.hasPermission("raftgen.admin")) {
+            sender.sendMessage("§c你沒有權限使用此指令!");
+            return;
+        }
+
+        ChunkPregenerator pregenerator = raftManager.getChunkPregenerator();
+        if (args.length == 1) {
+            sender.sendMessage(pregenerator.getStatusInfo());
+            sender.sendMessage("§a用法:");
+            sender.sendMessage("§e/raft pregen <半徑> §7- 以世界原點為中心預生成區塊（半徑單位為區塊）");
+            sender.sendMessage("§e/raft pregen slots <數量> §7- 預生成接下來的木筏位置");
+            sender.sendMessage("§e/raft pregen stop §7- 停止並清除進度");
+            sender.sendMessage("§e/raft pregen pause §7- 暫停，保留進度");
+            sender.sendMessage("§e/raft pregen resume §7- 繼續已暫停的預生成");
+            sender.sendMessage("§e/raft pregen status §7- 查看進度");
+            return;
+        }
+
+        World raftWorld = raftManager.getRaftWorld();
+        if (raftWorld == null) {
+            sender.sendMessage("§c木筏世界未載入!");
+            return;
+        }
+
+        String subCommand = args[1].toLowerCase();
+        switch (subCommand) {
+            case "status":
+                sender.sendMessage(pregenerator.getStatusInfo());
+                break;
+            case "stop":
+                pregenerator.stop(false);
+                sender.sendMessage("§a區塊預生成已停止!");
+                break;
+            case "pause":
+                pregenerator.stop(true);
+                sender.sendMessage("§a區塊預生成已暫停，使用 §e/raft pregen resume §a繼續");
+                break;
+            case "resume":
+                pregenerator.resumeIfPending();
+                sender.sendMessage(pregenerator.getStatusInfo());
+                break;
+            case "slots":
+                if (args.length < 3) {
+                    sender.sendMessage("§c用法: /raft pregen slots <數量>");
+                    return;
+                }
+                try {
+                    int count = Integer.parseInt(args[2]);
+                    if (!pregenerator.startSlots(raftWorld, raftManager.getNextRaftSlot(), count, sender)) {
+                        sender.sendMessage("§c無法開始預生成，可能已有任務在運行!");
+                    }
+                } catch (NumberFormatException e) {
+                    sender.sendMessage("§c無效的數量: " + args[2]);
+                }
+                break;
+            default:
+                try {
+                    int radius = Integer.parseInt(args[1]);
+                    if (!pregenerator.startRadius(raftWorld, 0, 0, radius, sender)) {
+                        sender.sendMessage("§c無法開始預生成，可能已有任務在運行!");
+                    }
+                } catch (NumberFormatException e) {
+                    sender.sendMessage("§c無效的半徑: " + args[1]);
+                }
+        }
+    }
+
     private void handleReloadCommand(CommandSender sender) {
         if (!sender.hasPermission("raftgen.admin")) {
             sender.sendMessage("§c你沒有權限使用此指令!");
@@ -530,6 +612,12 @@ public class RaftGen extends JavaPlugin implements Listener {
         // 重新加載配置
         reloadConfig();
 
+        // 更新世界生成器的配置快照
+        RaftChunkGenerator generator = getRaftGenerator();
+        if (generator != null) {
+            generator.reloadSettings();
+        }
+
         // 重新加載數據
         raftManager.loadSavedData();
 
@@ -921,6 +1009,7 @@ public class RaftGen extends JavaPlugin implements Listener {
             player.sendMessage("§b/raft shark §7- 鯊魚事件管理"); // 新增鯊魚命令幫助
             player.sendMessage("§a/raft health §7- 插件健康檢查");
             player.sendMessage("§a/raft diagnose §7- 插件診斷與修復");
+            player.sendMessage("§a/raft pregen §7- 區塊預生成");
         }
     }
 
@@ -955,6 +1044,7 @@ public class RaftGen extends JavaPlugin implements Listener {
         sender.sendMessage("§a/raft shark §7- 鯊魚事件管理"); // 新增鯊魚命令幫助
         sender.sendMessage("§a/raft health §7- 插件健康檢查");
         sender.sendMessage("§a/raft diagnose §7- 插件診斷與修復");
+        sender.sendMessage("§a/raft pregen §7- 區塊預生成");
     }
 
     @EventHandler
@@ -963,6 +1053,22 @@ public class RaftGen extends JavaPlugin implements Listener {
         // 可以在這裡添加木筏區域的方塊放置限制
     }
 
+    @EventHandler
+    public void onAsyncPlayerPreLogin(AsyncPlayerPreLoginEvent event) {
+        // 延遲加載：在登入前的異步線程預讀玩家的木筏記錄
+        if (raftManager != null && event.getLoginResult() == AsyncPlayerPreLoginEvent.Result.ALLOWED) {
+            raftManager.preloadRaftAsync(event.getUniqueId());
+        }
+    }
+
+    @EventHandler
+    public void onPlayerQuit(PlayerQuitEvent event) {
+        // 啟用木筏註冊表時，離線玩家的木筏數據不長期保留在記憶體中
+        if (raftManager != null) {
+            raftManager.evictRaftCache(event.getPlayer().getUniqueId());
+        }
+    }
+
     @Override
     public ChunkGenerator getDefaultWorldGenerator(String worldName, String id) {
         getLogger().info("為世界 '" + worldName + "' 創建 RaftChunkGenerator");
@@ -973,6 +1079,17 @@ public class RaftGen extends JavaPlugin implements Listener {
         return raftManager;
     }
 
+    /**
+     * 獲取木筏世界使用的區塊生成器，未使用本插件生成器時返回 null
+     */
+    public RaftChunkGenerator getRaftGenerator() {
+        World raftWorld = raftManager != null ? raftManager.getRaftWorld() : null;
+        if (raftWorld != null && raftWorld.getGenerator() instanceof RaftChunkGenerator) {
+            return (RaftChunkGenerator) raftWorld.getGenerator();
+        }
+        return null;
+    }
+
     public MarineLifeManager getMarineLifeManager() {
         return marineLifeManager;
     }
@@ -996,6 +1113,14 @@ public class RaftGen extends JavaPlugin implements Listener {
 
             // 添加配置信息
             status.append("§a木筏間距: §e").append(getConfig().getInt("raft.spacing", 200)).append(" 格\n");
+
+            // 添加地形噪聲快取信息
+            RaftChunkGenerator generator = getRaftGenerator();
+            if (generator != null) {
+                status.append("§a噪聲區域快取: §e命中 ").append(generator.getContinentCache().getHits() + generator.getSelectorCache().getHits())
+                        .append(" / 未命中 ").append(generator.getContinentCache().getMisses() + generator.getSelectorCache().getMisses())
+                        .append(" (").append(generator.getContinentCache().size() + generator.getSelectorCache().size()).append(" 個區域)\n");
+            }
         }
 
         // 添加海洋生物狀態
@@ -1014,9 +1139,27 @@ public class RaftGen extends JavaPlugin implements Listener {
             status.append("§aMythicMobs集成: §e").append(sharkEventManager.isMythicMobsAvailable() ? "已连接" : "未连接").append("\n");
         }
 
-        // 添加數據持久化狀態
+        // 添加區塊預生成狀態
+        if (raftManager != null) {
+            status.append(raftManager.getChunkPregenerator().getStatusInfo()).append("\n");
+        }
+
+        // 添加數據持久化狀態，自動保存的條件與 DataManager.startAutoSave 讀取的配置一致
         status.append("§a數據持久化: §e已啟用\n");
-        status.append("§a自動保存: §e每5分鐘\n");
+        long autoSaveInterval = Math.max(1, getConfig().getLong("raft.auto-save-interval", 5));
+        int changeThreshold = getConfig().getInt("performance.auto-save.change-threshold", 500);
+        status.append("§a自動保存: §e每").append(autoSaveInterval).append("分鐘");
+        if (changeThreshold > 0) {
+            status.append("，或累積 ").append(changeThreshold).append(" 個變更");
+        }
+        status.append("\n");
+        if (raftManager != null) {
+            long lastSaveTime = raftManager.getDataManager().getLastSaveTime();
+            status.append("§a上次保存: §e").append(lastSaveTime > 0
+                    ? (System.currentTimeMillis() - lastSaveTime) / 1000 + " 秒前"
+                    : "尚未保存").append("\n");
+            status.append("§a待保存變更: §e").append(raftManager.getPendingChangeCount()).append("\n");
+        }
 
         return status.toString();
     }
@@ -1043,7 +1186,7 @@ public class RaftGen extends JavaPlugin implements Listener {
      */
     public void manualSave() {
         if (raftManager != null) {
-            raftManager.saveData();
+            raftManager.saveAllData();
             getLogger().info("手動觸發數據保存完成");
         }
     }
@@ -1093,6 +1236,10 @@ public class RaftGen extends JavaPlugin implements Listener {
             diag.append("§a木筏世界: §e").append(raftManager.getRaftWorld() != null ? "已載入" : "未載入").append("\n");
             diag.append("§a數據完整性: §e").append(raftManager.getRaftCount() >= 0 ? "正常" : "異常").append("\n");
             diag.append("§a海洋生物系統狀態: §e").append(raftManager.isMarineLifeEnabled() ? "已啟用" : "未啟用").append("\n");
+            long lastSaveDuration = raftManager.getDataManager().getLastSaveDurationMillis();
+            diag.append("§a待保存變更: §e").append(raftManager.getPendingChangeCount()).append("\n");
+            diag.append("§a上次保存耗時: §e").append(lastSaveDuration >= 0 ? lastSaveDuration + " ms" : "尚未保存").append("\n");
+            diag.append("§a待處理方塊修改: §e").append(raftManager.getPendingBlockEditCount()).append("\n");
         }
 
         if (marineLifeManager != null) {
@@ -0,0 +1,454 @@
+package me.tleung.raftGen;
+
+import org.bukkit.Bukkit;
+import org.bukkit.Location;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.StandardOpenOption;
+import java.util.*;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Level;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.zip.CRC32;
+
+/**
+ * 木筏和团队变更的预写日志（二进制，只追加）
+ * 每次变更只追加一条记录，在 I/O 线程批量写入并 fsync，保存快照前先写入剩余的记录；
+ * 启动时在快照之上重放，每次保存快照后删除已被快照覆盖的日志段
+ *
+ * 记录格式: [int 长度][int CRC32][byte 类型][内容]
+ * 记录都是完整状态（木筏的位置和名称、团队的全部成员），重复重放结果不变
+ */
+public class RaftJournal {
+
+    private static final byte RAFT_PUT = 1;
+    private static final byte RAFT_REMOVE = 2;
+    private static final byte TEAM_PUT = 3;
+    private static final byte TEAM_REMOVE = 4;
+
+    private static final Pattern SEGMENT_NAME = Pattern.compile("journal-(\\d+)\\.wal");
+
+    private final RaftGen plugin;
+    private final File directory;
+    private final ScheduledExecutorService ioExecutor;
+
+    // 以下字段由 lock 保护：主线程追加，I/O 线程取出写入
+    private final Object lock = new Object();
+    private final ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+    private long segment;
+    private int recordsSinceCheckpoint;
+    private boolean flushScheduled;
+    private boolean compactionRequested;
+
+    // 日志段的写入和下面的文件通道由 writeLock 保护，只在 I/O 线程（或停用时）写入
+    // 需要同时持有两个锁时先取 writeLock
+    private final Object writeLock = new Object();
+    private FileChannel channel;
+    private long channelSegment = -1;
+
+    private long syncDelayMillis;
+    private int compactAfter;
+
+    public RaftJournal(RaftGen plugin, ScheduledExecutorService ioExecutor) {
+        this.plugin = plugin;
+        this.directory = new File(plugin.getDataFolder(), "journal");
+        this.ioExecutor = ioExecutor;
+        if (!directory.exists() && !directory.mkdirs()) {
+            plugin.getLogger().warning("无法创建日志目录: " + directory.getPath());
+        }
+
+        // 新记录写入比现有日志段更新的段，避免和待重放的记录混在一起
+        List<Long> existing = listSegments();
+        this.segment = existing.isEmpty() ? 0 : existing.get(existing.size() - 1) + 1;
+        loadSettings();
+    }
+
+    private void loadSettings() {
+        syncDelayMillis = Math.max(0, plugin.getConfig().getLong("performance.journal.sync-delay-ms", 50));
+        compactAfter = Math.max(1, plugin.getConfig().getInt("performance.journal.compact-after", 5000));
+    }
+
+    /**
+     * 记录木筏创建、重置或改名（位置无效时不记录）
+     */
+    public void logRaftPut(UUID playerId, Location location, String name) {
+        if (location == null || location.getWorld() == null) {
+            return;
+        }
+        append(out -> {
+            out.writeByte(RAFT_PUT);
+            writeUuid(out, playerId);
+            out.writeUTF(location.getWorld().getName());
+            out.writeDouble(location.getX());
+            out.writeDouble(location.getY());
+            out.writeDouble(location.getZ());
+            out.writeUTF(name != null ? name : "木筏");
+        });
+    }
+
+    /**
+     * 记录木筏删除
+     */
+    public void logRaftRemove(UUID playerId) {
+        append(out -> {
+            out.writeByte(RAFT_REMOVE);
+            writeUuid(out, playerId);
+        });
+    }
+
+    /**
+     * 记录团队当前的全部成员；没有成员表示团队已解散
+     */
+    public void logTeam(UUID leaderId, Collection<UUID> members) {
+        if (members == null || members.isEmpty()) {
+            append(out -> {
+                out.writeByte(TEAM_REMOVE);
+                writeUuid(out, leaderId);
+            });
+            return;
+        }
+
+        List<UUID> copy = new ArrayList<>(members);
+        append(out -> {
+            out.writeByte(TEAM_PUT);
+            writeUuid(out, leaderId);
+            out.writeInt(copy.size());
+            for (UUID memberId : copy) {
+                writeUuid(out, memberId);
+            }
+        });
+    }
+
+    /**
+     * 是否有尚未被快照覆盖的记录
+     */
+    public boolean hasRecords() {
+        synchronized (lock) {
+            return recordsSinceCheckpoint > 0 || listSegments().stream().anyMatch(s -> s < segment);
+        }
+    }
+
+    /**
+     * 在主线程捕获快照时调用：之后的记录写入新的日志段
+     * 这里只取出尚未写入磁盘的记录交给 Checkpoint，不做磁盘 I/O；
+     * 由 I/O 线程在写入快照前调用 persist 写入当前段并 fsync
+     */
+    public Checkpoint checkpoint() {
+        synchronized (lock) {
+            byte[] pending = buffer.toByteArray();
+            buffer.reset();
+            long id = segment;
+            segment++;
+            recordsSinceCheckpoint = 0;
+            compactionRequested = false;
+            return new Checkpoint(id, pending);
+        }
+    }
+
+    /**
+     * 写入快照前在 I/O 线程调用，把检查点取出的记录写入它的日志段并 fsync，
+     * 快照写入期间这些变更已经可以从日志恢复；写入失败时保留在 Checkpoint 中，由 abort 再补写
+     */
+    void persist(Checkpoint checkpoint) {
+        if (checkpoint.unwritten.length > 0) {
+            synchronized (writeLock) {
+                if (writeSegment(checkpoint.segment, checkpoint.unwritten)) {
+                    checkpoint.unwritten = new byte[0];
+                }
+            }
+        }
+    }
+
+    /**
+     * 快照写入成功后在 I/O 线程调用，删除已被覆盖的日志段
+     */
+    void commit(Checkpoint checkpoint) {
+        synchronized (writeLock) {
+            if (channel != null && channelSegment <= checkpoint.segment) {
+                closeChannel();
+            }
+            for (long id : listSegments()) {
+                if (id <= checkpoint.segment && !segmentFile(id).delete()) {
+                    plugin.getLogger().warning("无法删除日志段: " + segmentFile(id).getName());
+                }
+            }
+        }
+    }
+
+    /**
+     * 快照写入失败时在 I/O 线程调用，把 persist 时未能写入磁盘的记录补写到旧段
+     */
+    void abort(Checkpoint checkpoint) {
+        persist(checkpoint);
+    }
+
+    /**
+     * 在快照数据之上按顺序重放所有日志段
+     * @return 重放的记录数量
+     */
+    public int replay(DataManager.RaftData raftData) {
+        int replayed = 0;
+        for (long id : listSegments()) {
+            File file = segmentFile(id);
+            try (DataInputStream in = new DataInputStream(Files.newInputStream(file.toPath()))) {
+                while (true) {
+                    byte[] payload = readRecord(in);
+                    if (payload == null) {
+                        break;
+                    }
+                    apply(raftData, payload);
+                    replayed++;
+                }
+            } catch (IOException e) {
+                plugin.getLogger().log(Level.SEVERE, "读取日志段失败: " + file.getName(), e);
+            }
+        }
+        return replayed;
+    }
+
+    /**
+     * 停用时在 I/O 线程关闭后调用，写入剩余记录
+     */
+    void close() {
+        synchronized (writeLock) {
+            flushBuffer();
+            closeChannel();
+        }
+    }
+
+    private interface RecordWriter {
+        void write(DataOutputStream out) throws IOException;
+    }
+
+    private void append(RecordWriter writer) {
+        byte[] payload;
+        try {
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream(64);
+            writer.write(new DataOutputStream(bytes));
+            payload = bytes.toByteArray();
+        } catch (IOException e) {
+            // 写入内存不会失败
+            throw new IllegalStateException(e);
+        }
+
+        CRC32 crc = new CRC32();
+        crc.update(payload);
+
+        boolean compact;
+        synchronized (lock) {
+            DataOutputStream out = new DataOutputStream(buffer);
+            try {
+                out.writeInt(payload.length);
+                out.writeInt((int) crc.getValue());
+                out.write(payload);
+            } catch (IOException e) {
+                throw new IllegalStateException(e);
+            }
+            recordsSinceCheckpoint++;
+
+            // 同一批次内的记录合并成一次写入和 fsync
+            if (!flushScheduled) {
+                flushScheduled = true;
+                schedule(this::flushBuffer, syncDelayMillis);
+            }
+
+            compact = recordsSinceCheckpoint >= compactAfter && !compactionRequested;
+            if (compact) {
+                compactionRequested = true;
+            }
+        }
+
+        // 日志过长时合并进快照
+        if (compact) {
+            Bukkit.getScheduler().runTask(plugin, () -> plugin.getRaftManager().saveData());
+        }
+    }
+
+    private void flushBuffer() {
+        // 取出和写入在同一个 writeLock 内，保证记录按追加顺序写入
+        synchronized (writeLock) {
+            byte[] pending;
+            long target;
+            synchronized (lock) {
+                flushScheduled = false;
+                pending = buffer.toByteArray();
+                buffer.reset();
+                target = segment;
+            }
+            if (pending.length > 0) {
+                writeSegment(target, pending);
+            }
+        }
+    }
+
+    // 调用方持有 writeLock
+    private boolean writeSegment(long id, byte[] data) {
+        try {
+            if (channel == null || channelSegment != id) {
+                closeChannel();
+                channel = FileChannel.open(segmentFile(id).toPath(),
+                        StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+                channelSegment = id;
+            }
+            ByteBuffer bytes = ByteBuffer.wrap(data);
+            while (bytes.hasRemaining()) {
+                channel.write(bytes);
+            }
+            channel.force(false);
+            return true;
+        } catch (IOException e) {
+            plugin.getLogger().log(Level.SEVERE, "写入日志失败", e);
+            closeChannel();
+            return false;
+        }
+    }
+
+    private void closeChannel() {
+        if (channel != null) {
+            try {
+                channel.close();
+            } catch (IOException ignored) {
+            }
+            channel = null;
+            channelSegment = -1;
+        }
+    }
+
+    private void schedule(Runnable task, long delayMillis) {
+        try {
+            ioExecutor.schedule(task, delayMillis, TimeUnit.MILLISECONDS);
+        } catch (RejectedExecutionException e) {
+            // 执行器已关闭（插件停用中），直接在当前线程写入
+            task.run();
+        }
+    }
+
+    // 读取一条记录；文件末尾或记录不完整（崩溃时写了一半）时返回 null
+    private byte[] readRecord(DataInputStream in) throws IOException {
+        try {
+            int length = in.readInt();
+            int checksum = in.readInt();
+            if (length <= 0 || length > 1 << 20) {
+                plugin.getLogger().warning("日志记录长度无效，忽略之后的记录");
+                return null;
+            }
+            byte[] payload = new byte[length];
+            in.readFully(payload);
+
+            CRC32 crc = new CRC32();
+            crc.update(payload);
+            if ((int) crc.getValue() != checksum) {
+                plugin.getLogger().warning("日志记录校验失败，忽略之后的记录");
+                return null;
+            }
+            return payload;
+        } catch (EOFException e) {
+            return null;
+        }
+    }
+
+    private void apply(DataManager.RaftData raftData, byte[] payload) throws IOException {
+        DataInputStream in = new DataInputStream(new ByteArrayInputStream(payload));
+        byte type = in.readByte();
+        switch (type) {
+            case RAFT_PUT: {
+                UUID playerId = readUuid(in);
+                String worldName = in.readUTF();
+                double x = in.readDouble();
+                double y = in.readDouble();
+                double z = in.readDouble();
+                String name = in.readUTF();
+                raftData.playerRafts.put(playerId, new Location(Bukkit.getWorld(worldName), x, y, z));
+                raftData.raftNames.put(playerId, name);
+                raftData.removedRafts.remove(playerId);
+                break;
+            }
+            case RAFT_REMOVE: {
+                UUID playerId = readUuid(in);
+                raftData.playerRafts.remove(playerId);
+                raftData.raftNames.remove(playerId);
+                raftData.removedRafts.add(playerId);
+                break;
+            }
+            case TEAM_PUT: {
+                UUID leaderId = readUuid(in);
+                raftData.teamMembers.values().removeIf(leaderId::equals);
+                int count = in.readInt();
+                for (int i = 0; i < count; i++) {
+                    raftData.teamMembers.put(readUuid(in), leaderId);
+                }
+                break;
+            }
+            case TEAM_REMOVE: {
+                UUID leaderId = readUuid(in);
+                raftData.teamMembers.values().removeIf(leaderId::equals);
+                break;
+            }
+            default:
+                plugin.getLogger().warning("未知的日志记录类型: " + type);
+        }
+    }
+
+    private List<Long> listSegments() {
+        List<Long> ids = new ArrayList<>();
+        File[] files = directory.listFiles();
+        if (files != null) {
+            for (File file : files) {
+                Matcher matcher = SEGMENT_NAME.matcher(file.getName());
+                if (matcher.matches()) {
+                    ids.add(Long.parseLong(matcher.group(1)));
+                }
+            }
+        }
+        Collections.sort(ids);
+        return ids;
+    }
+
+    private File segmentFile(long id) {
+        return new File(directory, "journal-" + id + ".wal");
+    }
+
+    /**
+     * 快照对应的日志位置：这个段及之前的记录都已包含在快照中
+     */
+    static final class Checkpoint {
+        final long segment;
+        // 检查点时取出、尚未写入日志段的记录，只在 I/O 线程修改
+        private byte[] unwritten;
+
+        private Checkpoint(long segment, byte[] unwritten) {
+            this.segment = segment;
+            this.unwritten = unwritten;
+        }
+
+        /**
+         * 合并两次尚未写入的快照的日志位置
+         */
+        Checkpoint then(Checkpoint newer) {
+            byte[] combined = Arrays.copyOf(unwritten, unwritten.length + newer.unwritten.length);
+            System.arraycopy(newer.unwritten, 0, combined, unwritten.length, newer.unwritten.length);
+            return new Checkpoint(newer.segment, combined);
+        }
+    }
+
+    private static void writeUuid(DataOutputStream out, UUID id) throws IOException {
+        out.writeLong(id.getMostSignificantBits());
+        out.writeLong(id.getLeastSignificantBits());
+    }
+
+    private static UUID readUuid(DataInputStream in) throws IOException {
+        return new UUID(in.readLong(), in.readLong());
+    }
+}
\ No newline at end of file
@@ -9,7 +9,10 @@ import org.bukkit.entity.Player;
 import org.bukkit.OfflinePlayer;
 import org.bukkit.scheduler.BukkitRunnable;
 
+import java.io.IOException;
 import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.logging.Level;
 
 public class RaftManager {
 
@@ -17,11 +20,28 @@ public class RaftManager {
     private final HashMap<UUID, Location> playerRafts;
     private final HashMap<UUID, String> raftNames;
     private final HashMap<UUID, Long> deleteConfirmations;
+    // 自上次保存以来发生变化的木筏（按玩家）
+    private final Set<UUID> dirtyRafts = new HashSet<>();
     private World raftWorld;
     private final Random random;
     private final TeamManager teamManager;
     private final DataManager dataManager;
+    // 内存映射木筏注册表，未启用时为 null（所有木筏保存在上面的 HashMap 中）
+    private final RaftRegistryFile raftRegistry;
+    // 注册表模式下已离线但仍缓存木筏的玩家及其离线时间
+    private final Map<UUID, Long> offlineSince = new HashMap<>();
+    private final long evictAfterMillis;
+    // 自动分配的木筏位置
+    private final RaftSlotAllocator slotAllocator;
+    private final RaftSpatialIndex spatialIndex = new RaftSpatialIndex();
+    private final RaftSpatialLookup spatialLookup;
     private final MarineLifeManager marineLifeManager;
+    private final ChunkPregenerator chunkPregenerator;
+    // 木筏生成、重置和删除的方块修改
+    private final BlockEditQueue blockEdits;
+    private final RaftAreaClearer areaClearer;
+    // 正在清除区域的木筏（按玩家），清除完成后才移除木筏数据，避免槽位在清除期间被分配给新木筏
+    private final Set<UUID> clearingRafts = new HashSet<>();
 
     public RaftManager(RaftGen plugin) {
         this.plugin = plugin;
@@ -32,7 +52,20 @@ public class RaftManager {
         this.random = new Random();
         this.teamManager = new TeamManager(plugin);
         this.dataManager = new DataManager(plugin);
+        this.raftRegistry = dataManager.getRaftRegistry();
+        this.evictAfterMillis = plugin.getConfig().getBoolean("storage.lazy-loading.enabled", false)
+                ? plugin.getConfig().getLong("storage.lazy-loading.evict-after-minutes", 10) * 60000L
+                : 0L;
+        this.teamManager.setJournal(dataManager.getJournal());
+        this.slotAllocator = new RaftSlotAllocator(plugin.getDataFolder(), plugin.getConfig().getInt("raft.spacing", 200));
+        this.spatialLookup = new RaftSpatialLookup(slotAllocator, spatialIndex, this::getRaftWorld, playerId -> {
+            UUID leaderId = teamManager.getPlayerTeamLeader(playerId);
+            return leaderId != null ? leaderId : playerId;
+        });
         this.marineLifeManager = new MarineLifeManager(plugin);
+        this.chunkPregenerator = new ChunkPregenerator(plugin, this);
+        this.blockEdits = new BlockEditQueue(plugin);
+        this.areaClearer = new RaftAreaClearer(plugin, blockEdits, slotAllocator.getSpacing());
 
         initializeRaftWorld();
     }
@@ -103,30 +136,41 @@ public class RaftManager {
     }
 
     public void createRaft(Player player) {
-        createRaftAtLocation(player, null);
+        createRaftAsync(player, null);
     }
 
     /**
      * 在指定位置创建木筏 (API使用)
+     * @return 是否已开始创建；区块加载和方块放置在之后异步完成
      */
     public boolean createRaftAtLocation(Player player, Location customLocation) {
+        CompletableFuture<Boolean> future = createRaftAsync(player, customLocation);
+        return !future.isDone() || future.getNow(false);
+    }
+
+    /**
+     * 异步创建木筏：先在主线程保留木筏位置，再异步加载周围 3x3 区块，
+     * 区块就绪后回到主线程放置方块并传送玩家
+     * @return 创建完成后得到是否成功
+     */
+    public CompletableFuture<Boolean> createRaftAsync(Player player, Location customLocation) {
         UUID playerId = player.getUniqueId();
 
         UUID teamLeaderId = teamManager.getPlayerTeamLeader(playerId);
         if (teamLeaderId != null && !teamLeaderId.equals(playerId)) {
-            if (playerRafts.containsKey(teamLeaderId)) {
+            if (hasRaft(teamLeaderId)) {
                 player.sendMessage("§a你已加入队伍，将使用队长的木筏...");
                 teleportToRaft(player);
-                return true;
+                return CompletableFuture.completedFuture(true);
             } else {
                 player.sendMessage("§c你的队长还没有创建木筏! 请等待队长创建");
-                return false;
+                return CompletableFuture.completedFuture(false);
             }
         }
 
-        if (playerRafts.containsKey(playerId)) {
+        if (hasRaft(playerId)) {
             player.sendMessage("§c你已经有一个木筏了! 使用 /raft home 传送过去");
-            return false;
+            return CompletableFuture.completedFuture(false);
         }
 
         player.sendMessage("§a正在生成你的木筏...");
@@ -135,43 +179,45 @@ public class RaftManager {
             initializeRaftWorld();
             if (raftWorld == null) {
                 player.sendMessage("§c木筏世界加载失败，请联系管理员");
-                return false;
+                return CompletableFuture.completedFuture(false);
             }
         }
 
-        int spacing = 200;
         int baseHeight = 62;
 
         Location raftLocation;
+        int slot = -1;
         if (customLocation != null) {
             // 使用自定义位置
             raftLocation = customLocation;
         } else {
-            // 自动生成位置
-            int raftIndex = playerRafts.size();
-            int raftX = raftIndex * spacing;
-            int raftZ = raftIndex * spacing;
-            raftLocation = new Location(raftWorld, raftX, baseHeight, raftZ);
+            // 自动分配槽位
+            slot = slotAllocator.allocate(playerId);
+            raftLocation = getRaftSlotLocation(raftWorld, slot);
         }
 
         // 调用创建事件
         RaftCreateEvent event = new RaftCreateEvent(player, raftLocation);
         Bukkit.getPluginManager().callEvent(event);
         if (event.isCancelled()) {
+            slotAllocator.release(slot);
             player.sendMessage("§c木筏创建被取消!");
-            return false;
+            return CompletableFuture.completedFuture(false);
         }
         raftLocation = event.getLocation();
+        if (slot >= 0 && slotOf(raftLocation) != slot) {
+            // 其他插件修改了位置，分配的槽位没有使用
+            slotAllocator.release(slot);
+        }
 
-        playerRafts.put(playerId, raftLocation);
-        raftNames.put(playerId, player.getName() + "的木筏");
+        // 立即保留位置，之后的创建请求会分配到下一个位置
+        putRaft(playerId, raftLocation, player.getName() + "的木筏");
 
         if (teamManager.isTeamLeader(playerId)) {
             Set<UUID> teamMembers = teamManager.getTeamMembers(playerId);
             for (UUID memberId : teamMembers) {
                 if (!memberId.equals(playerId)) {
-                    playerRafts.put(memberId, raftLocation);
-                    raftNames.put(memberId, player.getName() + "的队伍木筏");
+                    putRaft(memberId, raftLocation, player.getName() + "的队伍木筏");
                 }
             }
             teamManager.broadcastToTeam(playerId, "§a队长已创建队伍木筏! 使用 §e/raft home §a传送过去");
@@ -180,71 +226,162 @@ public class RaftManager {
         player.sendMessage("§e你的木筏位于独立世界: §b" + raftWorld.getName());
         player.sendMessage("§e木筏位置: §aX: " + raftLocation.getBlockX() + " §aZ: " + raftLocation.getBlockZ());
 
-        preGenerateRaftArea(raftLocation);
-
-        // 使用 final 变量来解决内部类问题
         final Location finalRaftLocation = raftLocation;
-        final int finalBaseHeight = baseHeight;
-        final UUID finalPlayerId = playerId;
-
-        new BukkitRunnable() {
-            @Override
-            public void run() {
-                // 生成木筏方块
-                generateRaftBlocks(finalRaftLocation);
-
-                // 在木筏周围生成海洋生物 - 添加检查确保系统就绪
-                if (marineLifeManager != null && marineLifeManager.isEnabled()) {
-                    marineLifeManager.spawnMarineLifeAroundRaft(finalRaftLocation);
-                } else {
-                    plugin.getLogger().info("海洋生物系统未就绪，跳过初始生成");
-                    // 尝试重新启动海洋生物系统
-                    if (marineLifeManager != null) {
-                        marineLifeManager.restart();
-                        // 延迟生成海洋生物
-                        Bukkit.getScheduler().runTaskLater(plugin, () -> {
-                            if (marineLifeManager.isEnabled()) {
-                                marineLifeManager.spawnMarineLifeAroundRaft(finalRaftLocation);
-                                plugin.getLogger().info("延迟生成木筏周围的海洋生物");
-                            }
-                        }, 40L); // 延迟2秒
+        final World world = raftLocation.getWorld();
+        final int centerChunkX = raftLocation.getBlockX() >> 4;
+        final int centerChunkZ = raftLocation.getBlockZ() >> 4;
+
+        CompletableFuture<Boolean> result = new CompletableFuture<>();
+        loadChunkNeighborhoodAsync(world, centerChunkX, centerChunkZ).whenComplete((ignored, error) -> runOnMainThread(() -> {
+            try {
+                if (error != null) {
+                    plugin.getLogger().warning("加载木筏区块失败: " + error.getMessage());
+                    releaseReservation(playerId, finalRaftLocation);
+                    if (player.isOnline()) {
+                        player.sendMessage("§c木筏区块加载失败，请稍后再试");
                     }
+                    result.complete(false);
+                    return;
                 }
 
-                // 直接使用 baseHeight + 1 生成玩家
-                Location spawnLocation = new Location(raftWorld, finalRaftLocation.getX() + 0.5, finalBaseHeight + 1, finalRaftLocation.getZ() + 0.5);
-                spawnLocation.setYaw(180);
+                // 等待期间木筏可能已被删除
+                if (!isSameRaft(lookupRaft(playerId), finalRaftLocation)) {
+                    result.complete(false);
+                    return;
+                }
 
-                Chunk chunk = spawnLocation.getChunk();
-                if (!chunk.isLoaded()) {
-                    chunk.load();
+                finishRaftCreation(player, finalRaftLocation, baseHeight);
+                result.complete(true);
+            } catch (Exception e) {
+                plugin.getLogger().log(Level.WARNING, "创建木筏时发生错误", e);
+                // 与区块加载失败一样放弃这次创建，释放保留的位置和槽位
+                releaseReservation(playerId, finalRaftLocation);
+                if (player.isOnline()) {
+                    player.sendMessage("§c创建木筏时发生错误，请稍后再试");
                 }
+                result.complete(false);
+            } finally {
+                releaseChunkNeighborhood(world, centerChunkX, centerChunkZ);
+            }
+        }));
 
-                ensureSafeSpawnArea(spawnLocation);
-                clearSpawnArea(spawnLocation);
-                safeTeleport(player, spawnLocation);
+        return result;
+    }
 
-                player.sendMessage("§a=== 你的木筏已生成完成! ===");
-                player.sendMessage("§6木筏名称: §e" + raftNames.get(finalPlayerId));
-                player.sendMessage("§6世界: §b" + raftWorld.getName());
-                player.sendMessage("§6木筏大小: §e3x3 木筏");
-                player.sendMessage("§6海洋生态: §a" + (marineLifeManager != null && marineLifeManager.isEnabled() ? "已启用海洋生物生成" : "海洋生物生成待处理"));
+    // 区块就绪后在主线程放置方块、生成海洋生物并传送玩家
+    private void finishRaftCreation(Player player, Location raftLocation, int baseHeight) {
+        UUID playerId = player.getUniqueId();
 
-                if (teamManager.isTeamLeader(finalPlayerId)) {
-                    player.sendMessage("§6队伍成员: §e" + (teamManager.getTeamMembers(finalPlayerId).size()) + " 人");
+        // 生成木筏方块
+        generateRaftBlocks(raftLocation);
+
+        // 在木筏周围生成海洋生物 - 添加检查确保系统就绪
+        if (marineLifeManager != null && marineLifeManager.isEnabled()) {
+            marineLifeManager.spawnMarineLifeAroundRaft(raftLocation);
+        } else {
+            plugin.getLogger().info("海洋生物系统未就绪，跳过初始生成");
+            // 尝试重新启动海洋生物系统
+            if (marineLifeManager != null) {
+                marineLifeManager.restart();
+                // 延迟生成海洋生物
+                Bukkit.getScheduler().runTaskLater(plugin, () -> {
+                    if (marineLifeManager.isEnabled()) {
+                        marineLifeManager.spawnMarineLifeAroundRaft(raftLocation);
+                        plugin.getLogger().info("延迟生成木筏周围的海洋生物");
+                    }
+                }, 40L); // 延迟2秒
+            }
+        }
+
+        // 直接使用 baseHeight + 1 生成玩家
+        Location spawnLocation = new Location(raftWorld, raftLocation.getX() + 0.5, baseHeight + 1, raftLocation.getZ() + 0.5);
+        spawnLocation.setYaw(180);
+
+        ensureSafeSpawnArea(spawnLocation);
+        clearSpawnArea(spawnLocation);
+
+        // 玩家在等待区块加载期间可能已经离线
+        if (player.isOnline()) {
+            safeTeleport(player, spawnLocation);
+
+            player.sendMessage("§a=== 你的木筏已生成完成! ===");
+            player.sendMessage("§6木筏名称: §e" + getRaftName(playerId));
+            player.sendMessage("§6世界: §b" + raftWorld.getName());
+            player.sendMessage("§6木筏大小: §e3x3 木筏");
+            player.sendMessage("§6海洋生态: §a" + (marineLifeManager != null && marineLifeManager.isEnabled() ? "已启用海洋生物生成" : "海洋生物生成待处理"));
+
+            if (teamManager.isTeamLeader(playerId)) {
+                player.sendMessage("§6队伍成员: §e" + (teamManager.getTeamMembers(playerId).size()) + " 人");
+            }
+
+            player.playSound(player.getLocation(), Sound.ENTITY_PLAYER_LEVELUP, 1.0f, 1.0f);
+            player.spawnParticle(Particle.HEART, player.getLocation(), 10);
+        }
+
+        plugin.getLogger().info("为玩家 " + player.getName() + " 生成木筏于: " + raftLocation.getBlockX() + ", " + raftLocation.getBlockZ());
+
+        // 提前预生成后续木筏位置，让新玩家创建木筏时区块已经生成
+        pregenerateUpcomingSlots();
+    }
+
+    // 创建失败时撤销保留的位置（包括队伍成员）
+    private void releaseReservation(UUID playerId, Location raftLocation) {
+        List<UUID> released = new ArrayList<>();
+        released.add(playerId);
+        if (teamManager.isTeamLeader(playerId)) {
+            for (UUID memberId : teamManager.getTeamMembers(playerId)) {
+                if (!memberId.equals(playerId) && isSameRaft(lookupRaft(memberId), raftLocation)) {
+                    released.add(memberId);
                 }
+            }
+        }
+        for (UUID id : released) {
+            removeRaftEntry(id);
+        }
+    }
 
-                player.playSound(player.getLocation(), Sound.ENTITY_PLAYER_LEVELUP, 1.0f, 1.0f);
-                player.spawnParticle(Particle.HEART, player.getLocation(), 10);
+    // 两个木筏位置是否指向同一个木筏
+    private boolean isSameRaft(Location a, Location b) {
+        if (a == null || b == null) {
+            return false;
+        }
+        return Objects.equals(a.getWorld(), b.getWorld())
+                && a.getBlockX() == b.getBlockX() && a.getBlockY() == b.getBlockY() && a.getBlockZ() == b.getBlockZ();
+    }
 
-                plugin.getLogger().info("为玩家 " + player.getName() + " 生成木筏于: " + finalRaftLocation.getBlockX() + ", " + finalRaftLocation.getBlockZ());
+    /**
+     * 异步加载并生成以指定区块为中心的 3x3 区块，加载完成的区块会加上插件票据，防止在放置方块前被卸载
+     */
+    private CompletableFuture<Void> loadChunkNeighborhoodAsync(World world, int centerChunkX, int centerChunkZ) {
+        List<CompletableFuture<Chunk>> futures = new ArrayList<>();
+        for (int dx = -1; dx <= 1; dx++) {
+            for (int dz = -1; dz <= 1; dz++) {
+                int chunkX = centerChunkX + dx;
+                int chunkZ = centerChunkZ + dz;
+                futures.add(world.getChunkAtAsync(chunkX, chunkZ, true).thenApply(chunk -> {
+                    world.addPluginChunkTicket(chunkX, chunkZ, plugin);
+                    return chunk;
+                }));
+            }
+        }
+        return CompletableFuture.allOf(futures.toArray(new CompletableFuture[0]));
+    }
 
-                // 创建木筏后保存数据
-                saveData();
+    private void releaseChunkNeighborhood(World world, int centerChunkX, int centerChunkZ) {
+        for (int dx = -1; dx <= 1; dx++) {
+            for (int dz = -1; dz <= 1; dz++) {
+                world.removePluginChunkTicket(centerChunkX + dx, centerChunkZ + dz, plugin);
             }
-        }.runTask(plugin);
+        }
+    }
 
-        return true;
+    // Paper 通常在主线程完成区块回调，否则切换回主线程执行
+    private void runOnMainThread(Runnable action) {
+        if (Bukkit.isPrimaryThread()) {
+            action.run();
+        } else {
+            Bukkit.getScheduler().runTask(plugin, action);
+        }
     }
 
     /**
@@ -258,77 +395,85 @@ public class RaftManager {
 
         plugin.getLogger().info("生成木筏方块于位置: " + centerX + ", " + baseHeight + ", " + centerZ);
 
-        // 在中心3x3区域生成木筏
+        // 在中心3x3区域生成木筏；玩家随后会被传送到木筏上，所以立即写入
+        BlockEditQueue.Batch batch = blockEdits.batch(world);
         for (int x = -1; x <= 1; x++) {
             for (int z = -1; z <= 1; z++) {
                 int blockX = centerX + x;
                 int blockZ = centerZ + z;
 
                 // 将水方块替换为橡木板
-                Block block = world.getBlockAt(blockX, baseHeight, blockZ);
-                if (block.getType() == Material.WATER || block.getType() == Material.AIR) {
-                    block.setType(Material.OAK_PLANKS);
-                    plugin.getLogger().info("设置木筏方块: " + blockX + ", " + baseHeight + ", " + blockZ);
-                }
+                batch.replace(blockX, baseHeight, blockZ, Material.OAK_PLANKS,
+                        type -> type == Material.WATER || type == Material.AIR);
 
                 // 清除木筏上方的方块（确保是空气）
                 for (int y = baseHeight + 1; y <= baseHeight + 3; y++) {
-                    Block aboveBlock = world.getBlockAt(blockX, y, blockZ);
-                    if (aboveBlock.getType() != Material.AIR) {
-                        aboveBlock.setType(Material.AIR);
-                    }
+                    batch.set(blockX, y, blockZ, Material.AIR);
                 }
             }
         }
 
-        // 强制重新载入区块以确保客户端更新
-        int chunkX = centerX >> 4;
-        int chunkZ = centerZ >> 4;
-        world.refreshChunk(chunkX, chunkZ);
-
-        plugin.getLogger().info("木筏方块生成完成");
+        int changed = batch.applyNow();
+        plugin.getLogger().info("木筏方块生成完成，修改了 " + changed + " 个方块");
     }
 
     /**
-     * 删除木筏方块 - 将木筏方块替换为水并清除上方方块
+     * 第 index 个木筏槽位的位置，槽位从原点开始按正方形螺旋向外排列
      */
-    private void removeRaftBlocks(Location center) {
-        World world = center.getWorld();
-        int centerX = center.getBlockX();
-        int centerZ = center.getBlockZ();
+    public Location getRaftSlotLocation(World world, int index) {
         int baseHeight = 62;
+        return slotAllocator.getLocation(world, index, baseHeight);
+    }
 
-        plugin.getLogger().info("删除木筏方块于位置: " + centerX + ", " + baseHeight + ", " + centerZ);
+    /**
+     * 按位置查询木筏（方块属于哪个木筏、最近的木筏）
+     */
+    public RaftSpatialLookup getSpatialLookup() {
+        return spatialLookup;
+    }
 
-        // 在中心3x3区域删除木筏
-        for (int x = -1; x <= 1; x++) {
-            for (int z = -1; z <= 1; z++) {
-                int blockX = centerX + x;
-                int blockZ = centerZ + z;
+    /**
+     * 水平距离不超过 radius 的所有木筏，玩家ID -> 木筏位置，只检查与范围重叠的区域
+     */
+    public Map<UUID, Location> getRaftsInRadius(Location center, double radius) {
+        if (center == null || center.getWorld() == null) {
+            return new HashMap<>();
+        }
+        return spatialIndex.queryRadius(center.getWorld(), center.getX(), center.getZ(), radius);
+    }
 
-                // 将木筏方块替换为水
-                Block block = world.getBlockAt(blockX, baseHeight, blockZ);
-                if (block.getType() == Material.OAK_PLANKS) {
-                    block.setType(Material.WATER);
-                    plugin.getLogger().info("移除木筏方块: " + blockX + ", " + baseHeight + ", " + blockZ);
-                }
+    /**
+     * 位置所在木筏的所属玩家（队伍木筏为队长），不在任何木筏范围内时返回 null
+     */
+    public UUID getRaftAt(Location location) {
+        return spatialLookup.getRaftOwnerAt(location);
+    }
 
-                // 清除木筏上方的方块
-                for (int y = baseHeight + 1; y <= baseHeight + 3; y++) {
-                    Block aboveBlock = world.getBlockAt(blockX, y, blockZ);
-                    if (aboveBlock.getType() != Material.WATER && aboveBlock.getType() != Material.AIR) {
-                        aboveBlock.setType(Material.AIR);
-                    }
-                }
-            }
-        }
+    /**
+     * 下一个从未分配过的槽位，之后的槽位所在区块还没有生成
+     */
+    public int getNextRaftSlot() {
+        return slotAllocator.getNextSlot();
+    }
 
-        // 强制重新载入区块以确保客户端更新
-        int chunkX = centerX >> 4;
-        int chunkZ = centerZ >> 4;
-        world.refreshChunk(chunkX, chunkZ);
+    // 木筏世界中位于槽位中心的位置对应的槽位，其他位置返回 -1
+    private int slotOf(Location location) {
+        if (location == null || raftWorld == null || !raftWorld.equals(location.getWorld())) {
+            return -1;
+        }
+        return slotAllocator.slotAt(location);
+    }
 
-        plugin.getLogger().info("木筏方块删除完成");
+    /**
+     * 在后台预生成接下来若干个木筏位置，数量由 performance.pregen.ahead-slots 决定
+     * 使用预生成器的自动队列，不占用 /raft pregen 的任务，也不写入 pregen.yml
+     */
+    public void pregenerateUpcomingSlots() {
+        int aheadSlots = plugin.getConfig().getInt("performance.pregen.ahead-slots", 3);
+        if (aheadSlots <= 0 || raftWorld == null) {
+            return;
+        }
+        chunkPregenerator.pregenerateAhead(raftWorld, slotAllocator.getNextSlot(), aheadSlots);
     }
 
     private void preGenerateRaftArea(Location center) {
@@ -382,17 +527,12 @@ public class RaftManager {
         int centerY = spawnLocation.getBlockY();
         int centerZ = spawnLocation.getBlockZ();
 
-        Block standBlock = world.getBlockAt(centerX, centerY - 1, centerZ);
-        if (!standBlock.getType().isSolid()) {
-            standBlock.setType(Material.OAK_PLANKS);
-        }
-
+        BlockEditQueue.Batch batch = blockEdits.batch(world);
+        batch.replace(centerX, centerY - 1, centerZ, Material.OAK_PLANKS, type -> !type.isSolid());
         for (int y = centerY; y <= centerY + 2; y++) {
-            Block headBlock = world.getBlockAt(centerX, y, centerZ);
-            if (headBlock.getType() != Material.AIR) {
-                headBlock.setType(Material.AIR);
-            }
+            batch.set(centerX, y, centerZ, Material.AIR);
         }
+        batch.applyNow();
     }
 
     private void safeTeleport(Player player, Location location) {
@@ -454,9 +594,11 @@ public class RaftManager {
         }
 
         // 如果没有找到理想位置，强制生成木筏并返回中心
-        world.getBlockAt(x, 62, z).setType(Material.OAK_PLANKS);
-        world.getBlockAt(x, 63, z).setType(Material.AIR);
-        world.getBlockAt(x, 64, z).setType(Material.AIR);
+        blockEdits.batch(world)
+                .set(x, 62, z, Material.OAK_PLANKS)
+                .set(x, 63, z, Material.AIR)
+                .set(x, 64, z, Material.AIR)
+                .applyNow();
 
         return new Location(world, x + 0.5, 63, z + 0.5, targetLocation.getYaw(), targetLocation.getPitch());
     }
@@ -498,16 +640,15 @@ public class RaftManager {
         int centerY = spawnLocation.getBlockY();
         int centerZ = spawnLocation.getBlockZ();
 
+        BlockEditQueue.Batch batch = blockEdits.batch(spawnLocation.getWorld());
         for (int x = -1; x <= 1; x++) {
             for (int z = -1; z <= 1; z++) {
                 for (int y = 0; y <= 2; y++) {
-                    Block block = spawnLocation.getWorld().getBlockAt(centerX + x, centerY + y, centerZ + z);
-                    if (block.getType() != Material.AIR && block.getType() != Material.WATER) {
-                        block.setType(Material.AIR);
-                    }
+                    batch.replace(centerX + x, centerY + y, centerZ + z, Material.AIR, type -> type != Material.WATER);
                 }
             }
         }
+        batch.applyNow();
     }
 
     public void teleportToRaft(Player player) {
@@ -516,12 +657,12 @@ public class RaftManager {
         UUID teamLeaderId = teamManager.getPlayerTeamLeader(playerId);
         UUID targetPlayerId = (teamLeaderId != null) ? teamLeaderId : playerId;
 
-        if (!playerRafts.containsKey(targetPlayerId)) {
+        if (!hasRaft(targetPlayerId)) {
             player.sendMessage("§c你还没有木筏! 使用 /raft create 创建一个");
             return;
         }
 
-        Location raftLoc = playerRafts.get(targetPlayerId);
+        Location raftLoc = lookupRaft(targetPlayerId);
         preGenerateRaftArea(raftLoc);
         // 直接使用 63 生成玩家
         Location spawnLocation = new Location(raftWorld, raftLoc.getX() + 0.5, 63, raftLoc.getZ() + 0.5);
@@ -559,13 +700,13 @@ public class RaftManager {
 
         UUID targetPlayerId = (teamLeaderId != null) ? teamLeaderId : playerId;
 
-        if (!playerRafts.containsKey(targetPlayerId)) {
+        if (!hasRaft(targetPlayerId)) {
             player.sendMessage("§c你还没有木筏!");
             return;
         }
 
         player.sendMessage("§e正在重置你的木筏...");
-        Location raftLoc = playerRafts.get(targetPlayerId);
+        Location raftLoc = lookupRaft(targetPlayerId);
         preloadChunks(raftLoc);
 
         // 使用 final 变量
@@ -575,34 +716,36 @@ public class RaftManager {
         new BukkitRunnable() {
             @Override
             public void run() {
-                resetRaftStructures(finalRaftLoc);
-                ensureRaftGenerated(finalRaftLoc);
-
-                // 重置后在木筏周围重新生成海洋生物 - 添加检查
-                if (marineLifeManager != null && marineLifeManager.isEnabled()) {
-                    marineLifeManager.spawnMarineLifeAroundRaft(finalRaftLoc);
-                } else {
-                    plugin.getLogger().info("海洋生物系统未就绪，跳过重置后的生成");
-                    // 尝试重新启动海洋生物系统
-                    if (marineLifeManager != null) {
-                        marineLifeManager.restart();
-                    }
-                }
+                // 清除建筑的方块修改分散在多个 tick 完成，完成后再重新生成木筏
+                resetRaftStructures(finalRaftLoc).thenRun(() -> onRaftReset(player, finalPlayerId, finalRaftLoc));
+            }
+        }.runTask(plugin);
+    }
 
-                player.sendMessage("§a木筏重置完成!");
-                player.sendMessage("§6木筏已恢复为纯净地形");
-                player.sendMessage("§6海洋生态: §e" + (marineLifeManager != null && marineLifeManager.isEnabled() ? "已重新生成" : "生成待处理"));
+    // 清除建筑完成后重新生成木筏和海洋生物
+    private void onRaftReset(Player player, UUID playerId, Location raftLoc) {
+        ensureRaftGenerated(raftLoc);
 
-                if (teamManager.isTeamLeader(finalPlayerId)) {
-                    teamManager.broadcastToTeam(finalPlayerId, "§a队伍木筏已重置!");
-                }
+        // 重置后在木筏周围重新生成海洋生物 - 添加检查
+        if (marineLifeManager != null && marineLifeManager.isEnabled()) {
+            marineLifeManager.spawnMarineLifeAroundRaft(raftLoc);
+        } else {
+            plugin.getLogger().info("海洋生物系统未就绪，跳过重置后的生成");
+            // 尝试重新启动海洋生物系统
+            if (marineLifeManager != null) {
+                marineLifeManager.restart();
+            }
+        }
 
-                player.playSound(player.getLocation(), Sound.BLOCK_ANVIL_USE, 1.0f, 1.0f);
+        player.sendMessage("§a木筏重置完成!");
+        player.sendMessage("§6木筏已恢复为纯净地形");
+        player.sendMessage("§6海洋生态: §e" + (marineLifeManager != null && marineLifeManager.isEnabled() ? "已重新生成" : "生成待处理"));
 
-                // 重置后保存数据
-                saveData();
-            }
-        }.runTask(plugin);
+        if (teamManager.isTeamLeader(playerId)) {
+            teamManager.broadcastToTeam(playerId, "§a队伍木筏已重置!");
+        }
+
+        player.playSound(player.getLocation(), Sound.BLOCK_ANVIL_USE, 1.0f, 1.0f);
     }
 
     public void showRaftInfo(Player player) {
@@ -611,14 +754,14 @@ public class RaftManager {
         UUID teamLeaderId = teamManager.getPlayerTeamLeader(playerId);
         UUID targetPlayerId = (teamLeaderId != null) ? teamLeaderId : playerId;
 
-        if (!playerRafts.containsKey(targetPlayerId)) {
+        if (!hasRaft(targetPlayerId)) {
             player.sendMessage("§c你还没有木筏! 使用 /raft create 创建一个");
             return;
         }
 
-        Location raftLoc = playerRafts.get(targetPlayerId);
+        Location raftLoc = lookupRaft(targetPlayerId);
         player.sendMessage("§6=== 木筏信息 ===");
-        player.sendMessage("§a名称: §f" + raftNames.get(targetPlayerId));
+        player.sendMessage("§a名称: §f" + getRaftName(targetPlayerId));
         player.sendMessage("§a位置: §f" + formatLocation(raftLoc));
         player.sendMessage("§a世界: §b" + raftLoc.getWorld().getName());
         player.sendMessage("§a大小: §f3x3 木筏");
@@ -659,26 +802,27 @@ public class RaftManager {
             }
 
             UUID targetPlayerId = targetPlayer.getUniqueId();
-            if (!playerRafts.containsKey(targetPlayerId)) {
+            if (!hasRaft(targetPlayerId)) {
                 player.sendMessage("§c玩家 " + targetPlayerName + " 没有木筏!");
                 return;
             }
 
-            if (targetPlayer.isOnline()) {
-                teleportToSpawn(targetPlayer);
+            if (isClearing(player, targetPlayerId)) {
+                return;
             }
 
-            completelyClearRaftArea(targetPlayerId);
-            playerRafts.remove(targetPlayerId);
-            raftNames.remove(targetPlayerId);
-
-            player.sendMessage("§a已成功删除玩家 " + targetPlayerName + " 的木筏!");
             if (targetPlayer.isOnline()) {
-                targetPlayer.sendMessage("§c你的木筏已被管理员删除!");
+                teleportToSpawn(targetPlayer);
             }
 
-            // 删除后保存数据
-            saveData();
+            completelyClearRaftArea(targetPlayerId, player).thenAccept(removed -> {
+                removeRaftEntry(targetPlayerId);
+
+                player.sendMessage("§a已成功删除玩家 " + targetPlayerName + " 的木筏!");
+                if (targetPlayer.isOnline()) {
+                    targetPlayer.sendMessage("§c你的木筏已被管理员删除!");
+                }
+            });
             return;
         }
 
@@ -690,11 +834,15 @@ public class RaftManager {
 
         UUID targetPlayerId = (teamLeaderId != null) ? teamLeaderId : playerId;
 
-        if (!playerRafts.containsKey(targetPlayerId)) {
+        if (!hasRaft(targetPlayerId)) {
             player.sendMessage("§c你还没有木筏!");
             return;
         }
 
+        if (isClearing(player, targetPlayerId)) {
+            return;
+        }
+
         long currentTime = System.currentTimeMillis();
 
         if (deleteConfirmations.containsKey(playerId)) {
@@ -745,12 +893,16 @@ public class RaftManager {
 
         UUID targetPlayerId = (teamLeaderId != null) ? teamLeaderId : playerId;
 
-        if (!playerRafts.containsKey(targetPlayerId)) {
+        if (!hasRaft(targetPlayerId)) {
             player.sendMessage("§c你还没有木筏!");
             deleteConfirmations.remove(playerId);
             return;
         }
 
+        if (isClearing(player, targetPlayerId)) {
+            return;
+        }
+
         player.sendMessage("§e正在删除你的木筏...");
 
         // 使用 final 变量
@@ -760,14 +912,9 @@ public class RaftManager {
         new BukkitRunnable() {
             @Override
             public void run() {
-                Location raftLoc = playerRafts.get(finalTargetPlayerId);
+                Location raftLoc = lookupRaft(finalTargetPlayerId);
                 plugin.getLogger().info("开始删除木筏，位置: " + raftLoc);
 
-                boolean raftExistsBefore = isRaftStillExists(finalTargetPlayerId);
-                if (raftExistsBefore) {
-                    plugin.getLogger().info("删除前检测到木筏仍然存在，开始清除...");
-                }
-
                 // 先传送玩家
                 teleportToSpawn(player);
 
@@ -781,56 +928,30 @@ public class RaftManager {
                     }
                 }
 
-                // 清除木筏区域
-                completelyClearRaftArea(finalTargetPlayerId);
-
-                // 等待一会后再次检查和清除
-                new BukkitRunnable() {
-                    @Override
-                    public void run() {
-                        // 再次清除以确保完全清除
-                        completelyClearRaftArea(finalTargetPlayerId);
-
-                        boolean raftExistsAfter = isRaftStillExists(finalTargetPlayerId);
-                        if (raftExistsAfter) {
-                            plugin.getLogger().warning("删除后木筏仍然存在，进行最终清除...");
-                            completelyClearRaftArea(finalTargetPlayerId);
-
-                            // 强制重新载入区块
-                            World world = raftLoc.getWorld();
-                            int chunkX = raftLoc.getBlockX() >> 4;
-                            int chunkZ = raftLoc.getBlockZ() >> 4;
-                            world.refreshChunk(chunkX, chunkZ);
-                        }
-
-                        // 移除数据
-                        if (teamManager.isTeamLeader(finalPlayerId)) {
-                            Set<UUID> teamMembers = teamManager.getTeamMembers(finalPlayerId);
-                            for (UUID memberId : teamMembers) {
-                                playerRafts.remove(memberId);
-                                raftNames.remove(memberId);
-                                deleteConfirmations.remove(memberId);
-                            }
-                            teamManager.broadcastToTeam(finalPlayerId, "§c队伍木筏已被队长删除!");
-                        } else {
-                            playerRafts.remove(finalTargetPlayerId);
-                            raftNames.remove(finalTargetPlayerId);
-                            deleteConfirmations.remove(finalPlayerId);
-                        }
-
-                        player.sendMessage("§a木筏删除完成!");
-                        if (raftExistsAfter) {
-                            player.sendMessage("§6注意: 木筏区域可能需要重新载入区块才能完全显示清除效果");
-                        } else {
-                            player.sendMessage("§6木筏区域已完全清除，恢复为海洋");
+                // 清除木筏区域，全部方块移除后再移除数据
+                completelyClearRaftArea(finalTargetPlayerId, player).thenAccept(removed -> {
+                    // 移除数据
+                    if (teamManager.isTeamLeader(finalPlayerId)) {
+                        Set<UUID> teamMembers = teamManager.getTeamMembers(finalPlayerId);
+                        for (UUID memberId : teamMembers) {
+                            removeRaftEntry(memberId);
+                            deleteConfirmations.remove(memberId);
                         }
-                        player.sendMessage("§6你可以使用 §a/raft create §6来创建一个新的木筏");
-                        player.playSound(player.getLocation(), Sound.ENTITY_PLAYER_LEVELUP, 1.0f, 0.5f);
+                        teamManager.broadcastToTeam(finalPlayerId, "§c队伍木筏已被队长删除!");
+                    } else {
+                        removeRaftEntry(finalTargetPlayerId);
+                        deleteConfirmations.remove(finalPlayerId);
+                    }
 
-                        // 删除后保存数据
-                        saveData();
+                    player.sendMessage("§a木筏删除完成!");
+                    if (removed < 0) {
+                        player.sendMessage("§6注意: 清除木筏区域时发生错误，部分方块可能仍然存在");
+                    } else {
+                        player.sendMessage("§6木筏区域已完全清除，恢复为海洋 (移除了 " + removed + " 个方块)");
                     }
-                }.runTaskLater(plugin, 20L); // 等待 1 秒后执行
+                    player.sendMessage("§6你可以使用 §a/raft create §6来创建一个新的木筏");
+                    player.playSound(player.getLocation(), Sound.ENTITY_PLAYER_LEVELUP, 1.0f, 0.5f);
+                });
             }
         }.runTask(plugin);
     }
@@ -838,17 +959,17 @@ public class RaftManager {
     public void deleteOtherPlayerRaft(CommandSender sender, String targetPlayerName) {
         Player targetPlayer = plugin.getServer().getPlayer(targetPlayerName);
         if (targetPlayer == null) {
-            for (UUID playerId : playerRafts.keySet()) {
+            for (UUID playerId : getAllRafts().keySet()) {
                 OfflinePlayer offlinePlayer = plugin.getServer().getOfflinePlayer(playerId);
                 if (offlinePlayer.getName() != null && offlinePlayer.getName().equalsIgnoreCase(targetPlayerName)) {
-                    completelyClearRaftArea(playerId);
-                    playerRafts.remove(playerId);
-                    raftNames.remove(playerId);
-
-                    sender.sendMessage("§a已成功删除玩家 " + targetPlayerName + " 的木筏!");
-
-                    // 删除后保存数据
-                    saveData();
+                    if (isClearing(sender, playerId)) {
+                        return;
+                    }
+                    sender.sendMessage("§e正在清除玩家 " + targetPlayerName + " 的木筏区域...");
+                    completelyClearRaftArea(playerId, sender).thenAccept(removed -> {
+                        removeRaftEntry(playerId);
+                        sender.sendMessage("§a已成功删除玩家 " + targetPlayerName + " 的木筏!");
+                    });
                     return;
                 }
             }
@@ -857,49 +978,53 @@ public class RaftManager {
         }
 
         UUID targetPlayerId = targetPlayer.getUniqueId();
-        if (!playerRafts.containsKey(targetPlayerId)) {
+        if (!hasRaft(targetPlayerId)) {
             sender.sendMessage("§c玩家 " + targetPlayerName + " 没有木筏!");
             return;
         }
 
-        if (targetPlayer.isOnline()) {
-            teleportToSpawn(targetPlayer);
+        if (isClearing(sender, targetPlayerId)) {
+            return;
         }
 
-        completelyClearRaftArea(targetPlayerId);
-        playerRafts.remove(targetPlayerId);
-        raftNames.remove(targetPlayerId);
-
-        sender.sendMessage("§a已成功删除玩家 " + targetPlayerName + " 的木筏!");
         if (targetPlayer.isOnline()) {
-            targetPlayer.sendMessage("§c你的木筏已被管理员删除!");
+            teleportToSpawn(targetPlayer);
         }
 
-        // 删除后保存数据
-        saveData();
+        sender.sendMessage("§e正在清除玩家 " + targetPlayerName + " 的木筏区域...");
+        completelyClearRaftArea(targetPlayerId, sender).thenAccept(removed -> {
+            removeRaftEntry(targetPlayerId);
+
+            sender.sendMessage("§a已成功删除玩家 " + targetPlayerName + " 的木筏!");
+            if (targetPlayer.isOnline()) {
+                targetPlayer.sendMessage("§c你的木筏已被管理员删除!");
+            }
+        });
     }
 
     /**
      * 强制删除木筏 (API使用)
      */
     public void forceDeleteRaft(UUID playerId) {
-        completelyClearRaftArea(playerId);
-        playerRafts.remove(playerId);
-        raftNames.remove(playerId);
+        if (clearingRafts.contains(playerId)) {
+            return;
+        }
         deleteConfirmations.remove(playerId);
-
-        // 删除后保存数据
-        saveData();
+        completelyClearRaftArea(playerId, null).thenAccept(removed -> removeRaftEntry(playerId));
     }
 
     public void forceClearRaftArea(Player player) {
         UUID playerId = player.getUniqueId();
 
-        if (!playerRafts.containsKey(playerId)) {
+        if (!hasRaft(playerId)) {
             player.sendMessage("§c你还没有木筏!");
             return;
         }
 
+        if (isClearing(player, playerId)) {
+            return;
+        }
+
         player.sendMessage("§e正在强制清除木筏区域...");
 
         // 使用 final 变量
@@ -908,88 +1033,50 @@ public class RaftManager {
         new BukkitRunnable() {
             @Override
             public void run() {
-                Location raftLoc = playerRafts.get(finalPlayerId);
-                completelyClearRaftArea(finalPlayerId);
-                World world = raftLoc.getWorld();
-                int chunkX = raftLoc.getBlockX() >> 4;
-                int chunkZ = raftLoc.getBlockZ() >> 4;
-                world.refreshChunk(chunkX, chunkZ);
-                player.sendMessage("§a强制清除完成!");
-                player.sendMessage("§6木筏区域已强制清除并重新载入");
-
-                // 清除后保存数据
-                saveData();
+                completelyClearRaftArea(finalPlayerId, player).thenAccept(removed -> {
+                    player.sendMessage("§a强制清除完成!");
+                    player.sendMessage("§6木筏区域已强制清除并重新载入");
+                });
             }
         }.runTask(plugin);
     }
 
-    private void completelyClearRaftArea(UUID playerId) {
-        if (!playerRafts.containsKey(playerId)) {
-            return;
+    /**
+     * 清除木筏周围 performance.raft-clear.radius 范围内玩家放置的方块：异步扫描区块快照，再分批移除
+     * 清除期间木筏数据保持不变，调用方在完成后再移除数据
+     * @param reporter 接收进度的玩家，可以为 null
+     * @return 完成后得到移除的方块数量，清除失败时为 -1；总是在主线程完成
+     */
+    private CompletableFuture<Integer> completelyClearRaftArea(UUID playerId, CommandSender reporter) {
+        if (!hasRaft(playerId)) {
+            return CompletableFuture.completedFuture(0);
         }
 
-        Location raftLoc = playerRafts.get(playerId);
+        Location raftLoc = lookupRaft(playerId);
         plugin.getLogger().info("开始完全清除玩家 " + playerId + " 的木筏区域，位置: " + raftLoc);
 
-        // 移除木筏方块
-        removeRaftBlocks(raftLoc);
+        // 附近的其他木筏，离它们更近的方块不清除
+        Collection<Location> otherRafts = spatialIndex.queryRadius(raftLoc.getWorld(), raftLoc.getX(), raftLoc.getZ(),
+                2.0 * areaClearer.getRadius()).values();
 
-        // 额外清理周围区域（防止有残留建筑）
-        World world = raftLoc.getWorld();
-        int centerX = raftLoc.getBlockX();
-        int centerZ = raftLoc.getBlockZ();
-        int baseHeight = 62;
-
-        // 扩大清除范围到 7x7 区域
-        for (int x = -3; x <= 3; x++) {
-            for (int z = -3; z <= 3; z++) {
-                for (int y = baseHeight + 1; y <= baseHeight + 10; y++) {
-                    Block block = world.getBlockAt(centerX + x, y, centerZ + z);
-                    if (block.getType() != Material.WATER && block.getType() != Material.AIR) {
-                        block.setType(Material.AIR);
-                    }
-                }
+        clearingRafts.add(playerId);
+        return areaClearer.clear(raftLoc, otherRafts, reporter).handle((removed, error) -> {
+            clearingRafts.remove(playerId);
+            if (error != null) {
+                plugin.getLogger().log(Level.WARNING, "清除玩家 " + playerId + " 的木筏区域失败", error);
+                return -1;
             }
-        }
-
-        plugin.getLogger().info("完成清除玩家 " + playerId + " 的木筏区域");
+            plugin.getLogger().info("完成清除玩家 " + playerId + " 的木筏区域，移除了 " + removed + " 个方块");
+            return removed;
+        });
     }
 
-    private boolean isRaftStillExists(UUID playerId) {
-        if (!playerRafts.containsKey(playerId)) {
-            return false;
-        }
-
-        Location raftLoc = playerRafts.get(playerId);
-        World world = raftLoc.getWorld();
-        int centerX = raftLoc.getBlockX();
-        int centerZ = raftLoc.getBlockZ();
-        int baseHeight = 62;
-
-        // 检查木筏核心区域是否有木筏方块
-        for (int x = -1; x <= 1; x++) {
-            for (int z = -1; z <= 1; z++) {
-                Block block = world.getBlockAt(centerX + x, baseHeight, centerZ + z);
-                if (block.getType() == Material.OAK_PLANKS) {
-                    plugin.getLogger().warning("检测到木筏方块仍然存在: " + (centerX + x) + ", " + baseHeight + ", " + (centerZ + z));
-                    return true;
-                }
-            }
+    // 木筏正在清除时提示发送者，避免同一个木筏同时被清除两次
+    private boolean isClearing(CommandSender sender, UUID playerId) {
+        if (clearingRafts.contains(playerId)) {
+            sender.sendMessage("§c该木筏正在清除中，请稍候再试");
+            return true;
         }
-
-        // 检查是否有其他残留方块
-        for (int x = -7; x <= 7; x++) {
-            for (int z = -7; z <= 7; z++) {
-                for (int y = baseHeight; y <= baseHeight + 5; y++) {
-                    Block block = world.getBlockAt(centerX + x, y, centerZ + z);
-                    if (block.getType() != Material.AIR && block.getType() != Material.WATER) {
-                        plugin.getLogger().warning("检测到残留方块: " + (centerX + x) + ", " + y + ", " + (centerZ + z) + " - " + block.getType());
-                        return true;
-                    }
-                }
-            }
-        }
-
         return false;
     }
 
@@ -1030,6 +1117,15 @@ public class RaftManager {
                 teamManager.cleanupExpiredInvites();
             }
         }.runTaskTimer(plugin, 6000L, 6000L);
+
+        if (raftRegistry != null && evictAfterMillis > 0) {
+            new BukkitRunnable() {
+                @Override
+                public void run() {
+                    evictOfflineRafts();
+                }
+            }.runTaskTimer(plugin, 1200L, 1200L);
+        }
     }
 
     public void listAllRafts(CommandSender sender) {
@@ -1038,25 +1134,26 @@ public class RaftManager {
             return;
         }
 
-        if (playerRafts.isEmpty()) {
+        Map<UUID, Location> rafts = getAllRafts();
+        if (rafts.isEmpty()) {
             sender.sendMessage("§6目前没有任何木筏记录");
             return;
         }
 
         sender.sendMessage("§6=== 所有木筏记录 ===");
-        sender.sendMessage("§a总数: §f" + playerRafts.size());
-        sender.sendMessage("§a木筏间距: §f200 格");
+        sender.sendMessage("§a总数: §f" + rafts.size());
+        sender.sendMessage("§a木筏间距: §f" + slotAllocator.getSpacing() + " 格");
         sender.sendMessage("§a木筏大小: §f3x3 木筏");
         sender.sendMessage("§a木筏类型: §f纯净浮岛，无装饰");
         sender.sendMessage("§a海洋生态: §f" + (marineLifeManager != null && marineLifeManager.isEnabled() ? "已启用海洋生物生成" : "海洋生物生成未启用"));
         sender.sendMessage("");
 
-        for (UUID playerId : playerRafts.keySet()) {
+        for (UUID playerId : rafts.keySet()) {
             if (teamManager.isTeamLeader(playerId) || !teamManager.isInTeam(playerId)) {
                 OfflinePlayer player = plugin.getServer().getOfflinePlayer(playerId);
                 String playerName = player.getName() != null ? player.getName() : "未知玩家";
-                Location loc = playerRafts.get(playerId);
-                String raftName = raftNames.get(playerId);
+                Location loc = rafts.get(playerId);
+                String raftName = getRaftName(playerId);
 
                 sender.sendMessage("§e" + playerName + " §7- §f" + raftName);
                 sender.sendMessage("  §7位置: §f" + formatLocation(loc));
@@ -1118,25 +1215,24 @@ public class RaftManager {
         return String.format("X: %d, Y: %d, Z: %d", loc.getBlockX(), loc.getBlockY(), loc.getBlockZ());
     }
 
-    private void resetRaftStructures(Location center) {
+    private CompletableFuture<Integer> resetRaftStructures(Location center) {
         World world = center.getWorld();
         int centerX = center.getBlockX();
         int centerZ = center.getBlockZ();
         int radius = 5;
 
+        BlockEditQueue.Batch batch = blockEdits.batch(world);
         for (int x = -radius; x <= radius; x++) {
             for (int z = -radius; z <= radius; z++) {
                 for (int y = 60; y <= 100; y++) {
                     double distance = Math.sqrt(x * x + z * z);
                     if (distance <= radius) {
-                        Block block = world.getBlockAt(centerX + x, y, centerZ + z);
-                        if (isPlayerStructure(block.getType())) {
-                            block.setType(Material.AIR);
-                        }
+                        batch.replace(centerX + x, y, centerZ + z, Material.AIR, this::isPlayerStructure);
                     }
                 }
             }
         }
+        return batch.submit();
     }
 
     private boolean isPlayerStructure(Material material) {
@@ -1155,18 +1251,261 @@ public class RaftManager {
     public void loadSavedData() {
         DataManager.RaftData raftData = dataManager.loadAllData();
 
-        this.playerRafts.putAll(raftData.playerRafts);
-        this.raftNames.putAll(raftData.raftNames);
+        boolean migrated = raftData.imported;
+        if (raftRegistry != null) {
+            // 注册表模式：快照和日志中的木筏写入注册表，堆上不保留
+            for (Map.Entry<UUID, Location> entry : raftData.playerRafts.entrySet()) {
+                writeRegistry(entry.getKey(), entry.getValue(), raftData.raftNames.get(entry.getKey()));
+            }
+            for (UUID playerId : raftData.removedRafts) {
+                raftRegistry.remove(playerId);
+            }
+            migrated |= !raftData.playerRafts.isEmpty() || !raftData.removedRafts.isEmpty();
+        } else {
+            this.playerRafts.putAll(raftData.playerRafts);
+            this.raftNames.putAll(raftData.raftNames);
+        }
 
         // 加载团队数据到 TeamManager
         teamManager.loadTeamData(raftData.teamMembers);
+
+        indexLoadedRafts();
+
+        // 把重放的日志和导入的数据合并进快照
+        if (migrated || dataManager.getJournal().hasRecords()) {
+            saveAllData();
+        }
+    }
+
+    // 用已有木筏的位置建立空间索引并重建槽位占用情况，队伍成员共用的槽位属于队长
+    // 注册表模式下直接逐条读取注册表中的坐标，不把木筏解码成 Location
+    private void indexLoadedRafts() {
+        spatialIndex.clear();
+        Map<Integer, UUID> occupied = new HashMap<>();
+        RaftRegistryFile.PositionVisitor indexRaft = (playerId, worldName, x, y, z) -> {
+            spatialIndex.put(playerId, worldName, x, y, z);
+            int slot = raftWorld != null && raftWorld.getName().equals(worldName) ? slotAllocator.slotAt(x, z) : -1;
+            if (slot >= 0) {
+                UUID leaderId = teamManager.getPlayerTeamLeader(playerId);
+                UUID ownerId = leaderId != null ? leaderId : playerId;
+                if (ownerId.equals(playerId) || !occupied.containsKey(slot)) {
+                    occupied.put(slot, ownerId);
+                }
+            }
+        };
+
+        if (raftRegistry != null) {
+            raftRegistry.forEachPosition(indexRaft);
+        } else {
+            for (Map.Entry<UUID, Location> raft : playerRafts.entrySet()) {
+                Location location = raft.getValue();
+                if (location != null && location.getWorld() != null) {
+                    indexRaft.accept(raft.getKey(), location.getWorld().getName(),
+                            location.getBlockX(), location.getBlockY(), location.getBlockZ());
+                }
+            }
+        }
+        slotAllocator.load(occupied);
+        plugin.getLogger().info("木筏槽位: " + slotAllocator.getOccupiedCount() + " 个已使用, "
+                + slotAllocator.getFreeSlotCount() + " 个空闲");
+    }
+
+    // 槽位分配状态在 I/O 线程写入 slots.yml
+    private void saveSlotState() {
+        RaftSlotAllocator.State state = slotAllocator.snapshot();
+        if (state == null) {
+            return;
+        }
+        dataManager.runOnIoThread(() -> {
+            try {
+                state.write();
+            } catch (IOException e) {
+                plugin.getLogger().log(Level.WARNING, "保存木筏槽位失败", e);
+            }
+        });
     }
 
     /**
-     * 保存当前数据
+     * 自上次保存以来变更过、尚未保存的木筏和团队数量
+     */
+    public int getPendingChangeCount() {
+        return dirtyRafts.size() + teamManager.getDirtyTeamCount();
+    }
+
+    public DataManager getDataManager() {
+        return dataManager;
+    }
+
+    /**
+     * 保存自上次保存以来变化的数据，没有变化时不做任何事
      */
     public void saveData() {
-        dataManager.saveAllData(playerRafts, raftNames, teamManager);
+        saveSlotState();
+        if (dirtyRafts.isEmpty() && !teamManager.hasDirtyTeams()) {
+            return;
+        }
+
+        // 注册表模式下木筏已直接写入注册表，快照只保存团队
+        Set<UUID> changedRafts = raftRegistry != null ? Collections.emptySet() : new HashSet<>(dirtyRafts);
+        dirtyRafts.clear();
+        dataManager.saveChanges(playerRafts, raftNames, changedRafts, teamManager, teamManager.drainDirtyTeams());
+    }
+
+    /**
+     * 完整重写所有数据（手动保存使用）
+     */
+    public void saveAllData() {
+        saveSlotState();
+        dirtyRafts.clear();
+        teamManager.drainDirtyTeams();
+        if (raftRegistry != null) {
+            dataManager.saveAllData(Collections.emptyMap(), Collections.emptyMap(), teamManager);
+        } else {
+            dataManager.saveAllData(playerRafts, raftNames, teamManager);
+        }
+    }
+
+    // 修改木筏数据时写入日志并记录变更，保存时只写入这些条目
+    private void putRaft(UUID playerId, Location location, String name) {
+        slotAllocator.occupy(slotOf(location), playerId);
+        spatialIndex.put(playerId, location);
+        if (raftRegistry == null || Bukkit.getPlayer(playerId) != null) {
+            playerRafts.put(playerId, location);
+            raftNames.put(playerId, name);
+        }
+        writeRegistry(playerId, location, name);
+        dirtyRafts.add(playerId);
+        dataManager.getJournal().logRaftPut(playerId, location, name);
+    }
+
+    private void removeRaftEntry(UUID playerId) {
+        // 删除槽位所属玩家的木筏时释放槽位，队伍成员共用的槽位在队长的木筏删除时释放
+        int slot = slotOf(lookupRaft(playerId));
+        if (slot >= 0 && playerId.equals(slotAllocator.getOwner(slot))) {
+            slotAllocator.release(slot);
+        }
+        spatialIndex.remove(playerId);
+        playerRafts.remove(playerId);
+        raftNames.remove(playerId);
+        if (raftRegistry != null) {
+            raftRegistry.remove(playerId);
+        }
+        dirtyRafts.add(playerId);
+        dataManager.getJournal().logRaftRemove(playerId);
+    }
+
+    private void writeRegistry(UUID playerId, Location location, String name) {
+        if (raftRegistry == null) {
+            return;
+        }
+        try {
+            raftRegistry.put(playerId, location, name);
+        } catch (IOException e) {
+            // 日志中仍有这条记录，下次启动时会重新写入
+            plugin.getLogger().log(Level.SEVERE, "写入木筏注册表失败", e);
+        }
+    }
+
+    // 查询木筏位置：注册表模式下堆上只缓存在线玩家的木筏，其他玩家直接从注册表读取
+    private Location lookupRaft(UUID playerId) {
+        Location location = playerRafts.get(playerId);
+        if (location != null || raftRegistry == null) {
+            return location;
+        }
+
+        RaftRegistryFile.Record record = raftRegistry.get(playerId);
+        if (record == null) {
+            return null;
+        }
+        location = record.toLocation();
+        if (Bukkit.getPlayer(playerId) != null) {
+            playerRafts.put(playerId, location);
+            raftNames.put(playerId, record.name);
+        }
+        return location;
+    }
+
+    /**
+     * 在登入前的异步线程预读玩家的木筏记录（只在注册表模式下）
+     * 记录在异步线程解码一次，主线程只放入缓存；期间注册表有过修改时改为在主线程重新读取，避免覆盖期间的修改
+     */
+    public void preloadRaftAsync(UUID playerId) {
+        if (raftRegistry == null) {
+            return;
+        }
+        // 先取修改计数再读取，读取期间的修改也会使计数不一致
+        long modCount = raftRegistry.getModCount();
+        RaftRegistryFile.Record preloaded = raftRegistry.get(playerId);
+        if (preloaded == null) {
+            return;
+        }
+
+        Bukkit.getScheduler().runTask(plugin, () -> {
+            offlineSince.remove(playerId);
+            RaftRegistryFile.Record record = raftRegistry.getModCount() == modCount ? preloaded : raftRegistry.get(playerId);
+            if (record != null) {
+                playerRafts.put(playerId, record.toLocation());
+                raftNames.put(playerId, record.name);
+            }
+        });
+    }
+
+    /**
+     * 玩家离线时释放堆上缓存的木筏数据（只在注册表模式下）
+     * 启用延迟加载时保留到离线超过 evict-after-minutes 再释放
+     */
+    public void evictRaftCache(UUID playerId) {
+        if (raftRegistry == null) {
+            return;
+        }
+        if (evictAfterMillis > 0) {
+            offlineSince.put(playerId, System.currentTimeMillis());
+        } else {
+            playerRafts.remove(playerId);
+            raftNames.remove(playerId);
+        }
+    }
+
+    // 释放离线时间超过设定值的玩家的缓存木筏，预读后没有进入服务器的玩家也从这里释放
+    private void evictOfflineRafts() {
+        long now = System.currentTimeMillis();
+        Iterator<UUID> iterator = playerRafts.keySet().iterator();
+        while (iterator.hasNext()) {
+            UUID playerId = iterator.next();
+            if (Bukkit.getPlayer(playerId) != null) {
+                offlineSince.remove(playerId);
+                continue;
+            }
+
+            long since = offlineSince.computeIfAbsent(playerId, id -> now);
+            if (now - since >= evictAfterMillis) {
+                iterator.remove();
+                raftNames.remove(playerId);
+                offlineSince.remove(playerId);
+            }
+        }
+        offlineSince.keySet().retainAll(playerRafts.keySet());
+    }
+
+    /**
+     * 立即完成所有排队的方块修改，插件停用时在保存数据前调用
+     */
+    public void flushBlockEdits() {
+        blockEdits.flush();
+    }
+
+    /**
+     * 排队中尚未写入的方块修改数量
+     */
+    public int getPendingBlockEditCount() {
+        return blockEdits.getPendingCount();
+    }
+
+    /**
+     * 等待所有保存写入完成并关闭 I/O 线程，插件停用时调用
+     */
+    public void shutdownPersistence() {
+        dataManager.shutdown();
     }
 
     /**
@@ -1182,23 +1521,33 @@ public class RaftManager {
      * 获取所有木筏数据 (API使用)
      */
     public Map<UUID, Location> getAllRafts() {
-        return new HashMap<>(playerRafts);
+        if (raftRegistry == null) {
+            return new HashMap<>(playerRafts);
+        }
+        Map<UUID, Location> rafts = new HashMap<>();
+        raftRegistry.forEach((playerId, record) -> rafts.put(playerId, record.toLocation()));
+        return rafts;
     }
 
     /**
      * 获取木筏名称 (API使用)
      */
     public String getRaftName(UUID playerId) {
-        return raftNames.getOrDefault(playerId, "未知木筏");
+        String name = raftNames.get(playerId);
+        if (name == null && raftRegistry != null) {
+            RaftRegistryFile.Record record = raftRegistry.get(playerId);
+            name = record != null ? record.name : null;
+        }
+        return name != null ? name : "未知木筏";
     }
 
     /**
      * 设置木筏名称 (API使用)
      */
     public void setRaftName(UUID playerId, String name) {
-        if (playerRafts.containsKey(playerId)) {
-            raftNames.put(playerId, name);
-            saveData(); // 设置名称后保存数据
+        Location location = lookupRaft(playerId);
+        if (location != null) {
+            putRaft(playerId, location, name);
         }
     }
 
@@ -1206,7 +1555,12 @@ public class RaftManager {
      * 获取木筏名称映射 (API使用)
      */
     public Map<UUID, String> getAllRaftNames() {
-        return new HashMap<>(raftNames);
+        if (raftRegistry == null) {
+            return new HashMap<>(raftNames);
+        }
+        Map<UUID, String> names = new HashMap<>();
+        raftRegistry.forEach((playerId, record) -> names.put(playerId, record.name));
+        return names;
     }
 
     // === 海洋生物系统方法 ===
@@ -1235,20 +1589,24 @@ public class RaftManager {
         return raftWorld;
     }
 
+    public ChunkPregenerator getChunkPregenerator() {
+        return chunkPregenerator;
+    }
+
     public TeamManager getTeamManager() {
         return teamManager;
     }
 
     public int getRaftCount() {
-        return playerRafts.size();
+        return raftRegistry != null ? raftRegistry.size() : playerRafts.size();
     }
 
     public boolean hasRaft(UUID playerId) {
-        return playerRafts.containsKey(playerId);
+        return playerRafts.containsKey(playerId) || (raftRegistry != null && raftRegistry.contains(playerId));
     }
 
     public Location getPlayerRaftLocation(UUID playerId) {
-        return playerRafts.get(playerId);
+        return lookupRaft(playerId);
     }
 
     /**
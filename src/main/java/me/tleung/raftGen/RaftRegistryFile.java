@@ -0,0 +1,282 @@
+package me.tleung.raftGen;
+
+import org.bukkit.Bukkit;
+import org.bukkit.Location;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+import java.util.function.BiConsumer;
+
+/**
+ * 内存映射的木筏注册表文件（rafts.registry），供木筏数量非常多的服务器使用
+ * 每个木筏占一个固定长度的槽位，修改直接写入映射内存，由操作系统写回磁盘；
+ * 堆上只保留 玩家UUID -> 槽位 的索引，不保留 Location 对象
+ *
+ * 文件头 64 字节: int 魔数 'RGRR', short 版本, short 记录长度, int 槽位容量
+ * 每条记录 160 字节:
+ *   byte 状态(0 空闲, 1 使用中), byte 世界名长度, byte 名称长度, byte 保留,
+ *   int x, int y, int z, long+long 玩家UUID, 48 字节世界名, 80 字节名称 (UTF-8)
+ */
+final class RaftRegistryFile {
+
+    private static final int MAGIC = 0x52475252; // "RGRR"
+    private static final short VERSION = 1;
+
+    private static final int HEADER_SIZE = 64;
+    private static final int RECORD_SIZE = 160;
+    private static final int WORLD_BYTES = 48;
+    private static final int NAME_BYTES = 80;
+
+    private static final int OFFSET_STATE = 0;
+    private static final int OFFSET_WORLD_LENGTH = 1;
+    private static final int OFFSET_NAME_LENGTH = 2;
+    private static final int OFFSET_X = 4;
+    private static final int OFFSET_Y = 8;
+    private static final int OFFSET_Z = 12;
+    private static final int OFFSET_MOST = 16;
+    private static final int OFFSET_LEAST = 24;
+    private static final int OFFSET_WORLD = 32;
+    private static final int OFFSET_NAME = OFFSET_WORLD + WORLD_BYTES;
+
+    private static final byte STATE_FREE = 0;
+    private static final byte STATE_USED = 1;
+
+    private final File file;
+    private final RandomAccessFile raf;
+    private MappedByteBuffer buffer;
+    private int capacity;
+
+    private final Map<UUID, Integer> index = new HashMap<>();
+    private final ArrayDeque<Integer> freeSlots = new ArrayDeque<>();
+    private int highWater;
+    // 每次写入或删除记录加一，异步读取的记录据此判断之后是否有修改
+    private long modCount;
+
+    RaftRegistryFile(File file, int initialCapacity) throws IOException {
+        this.file = file;
+        boolean exists = file.exists() && file.length() >= HEADER_SIZE;
+        this.raf = new RandomAccessFile(file, "rw");
+
+        if (exists) {
+            int magic = raf.readInt();
+            short version = raf.readShort();
+            short recordSize = raf.readShort();
+            if (magic != MAGIC || version != VERSION || recordSize != RECORD_SIZE) {
+                raf.close();
+                throw new IOException("不支持的木筏注册表文件: " + file.getName());
+            }
+            this.capacity = raf.readInt();
+            map(capacity);
+            scan();
+        } else {
+            this.capacity = Math.max(16, initialCapacity);
+            map(capacity);
+            buffer.putInt(0, MAGIC);
+            buffer.putShort(4, VERSION);
+            buffer.putShort(6, (short) RECORD_SIZE);
+            buffer.putInt(8, capacity);
+        }
+    }
+
+    /**
+     * 注册表中的一条木筏记录
+     */
+    static final class Record {
+        final String worldName;
+        final int x;
+        final int y;
+        final int z;
+        final String name;
+
+        private Record(String worldName, int x, int y, int z, String name) {
+            this.worldName = worldName;
+            this.x = x;
+            this.y = y;
+            this.z = z;
+            this.name = name;
+        }
+
+        Location toLocation() {
+            return new Location(Bukkit.getWorld(worldName), x, y, z);
+        }
+    }
+
+    synchronized boolean contains(UUID playerId) {
+        return index.containsKey(playerId);
+    }
+
+    synchronized int size() {
+        return index.size();
+    }
+
+    synchronized long getModCount() {
+        return modCount;
+    }
+
+    synchronized Record get(UUID playerId) {
+        Integer slot = index.get(playerId);
+        return slot == null ? null : read(slot);
+    }
+
+    /**
+     * 写入或覆盖玩家的木筏记录（位置无效时忽略）
+     */
+    synchronized void put(UUID playerId, Location location, String name) throws IOException {
+        if (location == null || location.getWorld() == null) {
+            return;
+        }
+
+        Integer slot = index.get(playerId);
+        if (slot == null) {
+            slot = allocateSlot();
+            index.put(playerId, slot);
+        }
+        modCount++;
+
+        int base = offset(slot);
+        // 先标记为空闲再写内容，最后写状态，写到一半崩溃时不会读到半条记录
+        buffer.put(base + OFFSET_STATE, STATE_FREE);
+        buffer.putInt(base + OFFSET_X, location.getBlockX());
+        buffer.putInt(base + OFFSET_Y, location.getBlockY());
+        buffer.putInt(base + OFFSET_Z, location.getBlockZ());
+        buffer.putLong(base + OFFSET_MOST, playerId.getMostSignificantBits());
+        buffer.putLong(base + OFFSET_LEAST, playerId.getLeastSignificantBits());
+        buffer.put(base + OFFSET_WORLD_LENGTH, (byte) writeText(base + OFFSET_WORLD, WORLD_BYTES, location.getWorld().getName()));
+        buffer.put(base + OFFSET_NAME_LENGTH, (byte) writeText(base + OFFSET_NAME, NAME_BYTES, name != null ? name : "木筏"));
+        buffer.put(base + OFFSET_STATE, STATE_USED);
+    }
+
+    synchronized void remove(UUID playerId) {
+        Integer slot = index.remove(playerId);
+        if (slot != null) {
+            modCount++;
+            buffer.put(offset(slot) + OFFSET_STATE, STATE_FREE);
+            freeSlots.push(slot);
+        }
+    }
+
+    /**
+     * 遍历所有记录（管理指令和 API 使用，会为每条记录创建对象）
+     */
+    synchronized void forEach(BiConsumer<UUID, Record> action) {
+        for (Map.Entry<UUID, Integer> entry : index.entrySet()) {
+            action.accept(entry.getKey(), read(entry.getValue()));
+        }
+    }
+
+    /**
+     * 逐条读取所有木筏的世界和方块坐标，不读取名称也不创建 Location（启动时建立索引使用）
+     */
+    synchronized void forEachPosition(PositionVisitor visitor) {
+        for (Map.Entry<UUID, Integer> entry : index.entrySet()) {
+            int base = offset(entry.getValue());
+            visitor.accept(entry.getKey(),
+                    readText(base + OFFSET_WORLD, buffer.get(base + OFFSET_WORLD_LENGTH) & 0xFF),
+                    buffer.getInt(base + OFFSET_X),
+                    buffer.getInt(base + OFFSET_Y),
+                    buffer.getInt(base + OFFSET_Z));
+        }
+    }
+
+    interface PositionVisitor {
+        void accept(UUID playerId, String worldName, int x, int y, int z);
+    }
+
+    /**
+     * 把映射内存中的修改写回磁盘
+     */
+    void force() {
+        // 只在锁内取映射引用，msync 放在锁外，避免 I/O 线程刷盘时卡住主线程的 put/remove/get；
+        // 与并发写入交错无妨，持久性由日志保证
+        MappedByteBuffer mapped;
+        synchronized (this) {
+            mapped = buffer;
+        }
+        mapped.force();
+    }
+
+    synchronized void close() {
+        force();
+        try {
+            raf.close();
+        } catch (IOException ignored) {
+        }
+    }
+
+    private void map(int slots) throws IOException {
+        long length = HEADER_SIZE + (long) slots * RECORD_SIZE;
+        raf.setLength(Math.max(raf.length(), length));
+        buffer = raf.getChannel().map(FileChannel.MapMode.READ_WRITE, 0, length);
+    }
+
+    // 启动时扫描一次所有槽位，建立索引和空闲槽位列表
+    private void scan() {
+        for (int slot = 0; slot < capacity; slot++) {
+            int base = offset(slot);
+            if (buffer.get(base + OFFSET_STATE) == STATE_USED) {
+                UUID playerId = new UUID(buffer.getLong(base + OFFSET_MOST), buffer.getLong(base + OFFSET_LEAST));
+                index.put(playerId, slot);
+                highWater = slot + 1;
+            }
+        }
+        for (int slot = highWater - 1; slot >= 0; slot--) {
+            if (buffer.get(offset(slot) + OFFSET_STATE) != STATE_USED) {
+                freeSlots.push(slot);
+            }
+        }
+    }
+
+    private int allocateSlot() throws IOException {
+        if (!freeSlots.isEmpty()) {
+            return freeSlots.pop();
+        }
+        if (highWater >= capacity) {
+            // 容量不足时扩大一倍并重新映射
+            buffer.force();
+            capacity *= 2;
+            map(capacity);
+            buffer.putInt(8, capacity);
+        }
+        return highWater++;
+    }
+
+    private Record read(int slot) {
+        int base = offset(slot);
+        return new Record(
+                readText(base + OFFSET_WORLD, buffer.get(base + OFFSET_WORLD_LENGTH) & 0xFF),
+                buffer.getInt(base + OFFSET_X),
+                buffer.getInt(base + OFFSET_Y),
+                buffer.getInt(base + OFFSET_Z),
+                readText(base + OFFSET_NAME, buffer.get(base + OFFSET_NAME_LENGTH) & 0xFF));
+    }
+
+    // 写入 UTF-8 文本，超出长度时在字符边界截断，返回写入的字节数
+    private int writeText(int position, int maxBytes, String text) {
+        byte[] bytes = text.getBytes(StandardCharsets.UTF_8);
+        int length = Math.min(bytes.length, maxBytes);
+        while (length < bytes.length && length > 0 && (bytes[length] & 0xC0) == 0x80) {
+            length--;
+        }
+        for (int i = 0; i < length; i++) {
+            buffer.put(position + i, bytes[i]);
+        }
+        return length;
+    }
+
+    private String readText(int position, int length) {
+        byte[] bytes = new byte[length];
+        for (int i = 0; i < length; i++) {
+            bytes[i] = buffer.get(position + i);
+        }
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private static int offset(int slot) {
+        return HEADER_SIZE + slot * RECORD_SIZE;
+    }
+}
\ No newline at end of file
@@ -0,0 +1,303 @@
+package me.tleung.raftGen;
+
+import org.bukkit.Location;
+import org.bukkit.World;
+import org.bukkit.configuration.file.YamlConfiguration;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.*;
+
+/**
+ * 自动分配的木筏位置（槽位）
+ * 槽位按正方形螺旋从原点向外排列，间距为 raft.spacing：0 是原点，1~8 是第一圈，9~24 是第二圈……
+ * 删除木筏后槽位放回空闲列表，下次优先分配（编号小的先分配），木筏保持集中在出生点附近
+ *
+ * 槽位编号与网格坐标之间的换算都是 O(1)；
+ * 只保存下一个新槽位和空闲列表（slots.yml），占用情况在加载时由木筏位置重建
+ * 不按螺旋顺序占用的槽位（指定位置或旧版本布局的木筏）只记录占用者，不推进下一个新槽位，
+ * 所以内存和加载时间只与木筏数量有关，与槽位编号的大小无关
+ */
+final class RaftSlotAllocator {
+
+    // 槽位编号不超过 int 的最后一整圈，更外圈的网格坐标没有槽位
+    static final int MAX_RING = 23169;
+
+    private final int spacing;
+    private final File stateFile;
+    // 槽位 -> 占用该槽位的玩家（创建木筏的玩家或队长）
+    private final Map<Integer, UUID> owners = new HashMap<>();
+    // nextSlot 之前被释放的槽位，编号最小的先分配
+    private final TreeSet<Integer> freeSlots = new TreeSet<>();
+    // 螺旋顺序上从未分配过的第一个槽位（之后被其他方式占用的槽位分配时跳过）
+    private int nextSlot;
+    private boolean dirty;
+
+    RaftSlotAllocator(File dataFolder, int spacing) {
+        this.stateFile = new File(dataFolder, "slots.yml");
+        this.spacing = Math.max(1, spacing);
+    }
+
+    int getSpacing() {
+        return spacing;
+    }
+
+    /**
+     * 下一次 allocate 会分配的槽位
+     */
+    int getNextSlot() {
+        for (int slot : freeSlots) {
+            if (!owners.containsKey(slot)) {
+                return slot;
+            }
+        }
+        int slot = nextSlot;
+        while (owners.containsKey(slot)) {
+            slot++;
+        }
+        return slot;
+    }
+
+    int getFreeSlotCount() {
+        return freeSlots.size();
+    }
+
+    /**
+     * 分配一个槽位：优先使用空闲列表，没有时使用下一个新槽位
+     */
+    int allocate(UUID ownerId) {
+        int slot;
+        do {
+            slot = freeSlots.isEmpty() ? nextSlot++ : freeSlots.pollFirst();
+        } while (owners.containsKey(slot));
+
+        owners.put(slot, ownerId);
+        dirty = true;
+        return slot;
+    }
+
+    /**
+     * 标记槽位已被占用（加载已有木筏或在槽位上手动创建木筏时）
+     * 不推进 nextSlot，螺旋分配到这个槽位时会跳过它
+     */
+    void occupy(int slot, UUID ownerId) {
+        if (slot < 0 || owners.containsKey(slot)) {
+            return;
+        }
+        owners.put(slot, ownerId);
+        freeSlots.remove(slot);
+        dirty = true;
+    }
+
+    void release(int slot) {
+        if (slot >= 0 && owners.remove(slot) != null) {
+            // nextSlot 之后的槽位之后会按螺旋顺序分配到，不需要放入空闲列表
+            if (slot < nextSlot) {
+                freeSlots.add(slot);
+            }
+            dirty = true;
+        }
+    }
+
+    UUID getOwner(int slot) {
+        return owners.get(slot);
+    }
+
+    int getOccupiedCount() {
+        return owners.size();
+    }
+
+    /**
+     * 位于槽位中心的方块坐标对应的槽位，不在槽位中心时返回 -1
+     */
+    int slotAt(int blockX, int blockZ) {
+        if (Math.floorMod(blockX, spacing) != 0 || Math.floorMod(blockZ, spacing) != 0) {
+            return -1;
+        }
+        return gridToSlot(blockX / spacing, blockZ / spacing);
+    }
+
+    int slotAt(Location location) {
+        return location != null ? slotAt(location.getBlockX(), location.getBlockZ()) : -1;
+    }
+
+    /**
+     * 离方块坐标最近的槽位中心所在的槽位，超出最外圈时返回 -1
+     */
+    int nearestSlot(int blockX, int blockZ) {
+        long grid = nearestGrid(blockX, blockZ);
+        return gridToSlot(gridX(grid), gridZ(grid));
+    }
+
+    /**
+     * 离方块坐标最近的槽位中心的网格坐标，不论该位置是否有槽位编号
+     */
+    long nearestGrid(int blockX, int blockZ) {
+        int gridX = (int) Math.floorDiv(blockX + (long) (spacing / 2), spacing);
+        int gridZ = (int) Math.floorDiv(blockZ + (long) (spacing / 2), spacing);
+        return ((long) gridX << 32) | (gridZ & 0xFFFFFFFFL);
+    }
+
+    Location getLocation(World world, int slot, int baseHeight) {
+        long grid = slotToGrid(slot);
+        return new Location(world, (double) gridX(grid) * spacing, baseHeight, (double) gridZ(grid) * spacing);
+    }
+
+    /**
+     * 槽位编号 -> 网格坐标，x 在高 32 位，z 在低 32 位
+     * 第 k 圈的槽位编号是 (2k-1)^2 到 (2k+1)^2-1，依次沿四条边排列
+     */
+    static long slotToGrid(int slot) {
+        if (slot <= 0) {
+            return 0L;
+        }
+
+        // 最外的不完整一圈的 last 超出 int，用 long 计算
+        long ring = ringOf(slot);
+        long side = 2 * ring;
+        long last = (2 * ring + 1) * (2 * ring + 1) - 1;
+        int x;
+        int z;
+        if (slot >= last - side) {
+            x = (int) (ring - (last - slot));
+            z = (int) -ring;
+        } else if (slot >= last - 2 * side) {
+            x = (int) -ring;
+            z = (int) (-ring + (last - side - slot));
+        } else if (slot >= last - 3 * side) {
+            x = (int) (-ring + (last - 2 * side - slot));
+            z = (int) ring;
+        } else {
+            x = (int) ring;
+            z = (int) (ring - (last - 3 * side - slot));
+        }
+        return ((long) x << 32) | (z & 0xFFFFFFFFL);
+    }
+
+    /**
+     * 网格坐标 -> 槽位编号，圈数超过 MAX_RING（编号超出 int）时返回 -1
+     */
+    static int gridToSlot(int x, int z) {
+        long ring = Math.max(Math.abs((long) x), Math.abs((long) z));
+        if (ring == 0) {
+            return 0;
+        }
+        if (ring > MAX_RING) {
+            return -1;
+        }
+
+        long side = 2 * ring;
+        long last = (2 * ring + 1) * (2 * ring + 1) - 1;
+        if (z == -ring) {
+            return (int) (last - (ring - x));
+        }
+        if (x == -ring) {
+            return (int) (last - side - (z + ring));
+        }
+        if (z == ring) {
+            return (int) (last - 2 * side - (x + ring));
+        }
+        return (int) (last - 3 * side - (ring - z));
+    }
+
+    static int gridX(long grid) {
+        return (int) (grid >> 32);
+    }
+
+    static int gridZ(long grid) {
+        return (int) grid;
+    }
+
+    // 槽位所在的圈数，开方结果在边界上可能有误差，再修正一次
+    private static int ringOf(int slot) {
+        int ring = (int) Math.ceil((Math.sqrt(slot + 1.0) - 1) / 2);
+        while ((2L * ring + 1) * (2L * ring + 1) <= slot) {
+            ring++;
+        }
+        while (ring > 0 && (2L * ring - 1) * (2L * ring - 1) > slot) {
+            ring--;
+        }
+        return ring;
+    }
+
+    /**
+     * 读取保存的分配状态，并用已有木筏的槽位重建占用情况
+     * @param occupied 槽位 -> 占用的玩家
+     */
+    void load(Map<Integer, UUID> occupied) {
+        owners.clear();
+        freeSlots.clear();
+        nextSlot = 0;
+
+        if (stateFile.exists()) {
+            YamlConfiguration state = YamlConfiguration.loadConfiguration(stateFile);
+            nextSlot = Math.max(0, state.getInt("next-slot", 0));
+            for (int slot : state.getIntegerList("free-slots")) {
+                if (slot >= 0 && slot < nextSlot) {
+                    freeSlots.add(slot);
+                }
+            }
+        }
+
+        // 第一次使用（或旧版本的对角线布局）时 nextSlot 为 0，原点附近未使用的槽位由螺旋分配依次填上
+        int ownedBefore = 0;
+        for (Map.Entry<Integer, UUID> entry : occupied.entrySet()) {
+            occupy(entry.getKey(), entry.getValue());
+            if (entry.getKey() >= 0 && entry.getKey() < nextSlot) {
+                ownedBefore++;
+            }
+        }
+
+        // 保存的状态可能比木筏数据旧（例如崩溃后从日志恢复），nextSlot 之前有槽位既没有木筏也不在空闲列表中时，
+        // 找出来重新放回去；nextSlot 只随螺旋分配增长，不超过分配过的木筏数量
+        if (ownedBefore + freeSlots.size() < nextSlot) {
+            for (int slot = 0; slot < nextSlot; slot++) {
+                if (!owners.containsKey(slot)) {
+                    freeSlots.add(slot);
+                }
+            }
+        }
+        dirty = true;
+    }
+
+    /**
+     * 复制当前的分配状态，没有变化时返回 null；写入可以在其他线程进行
+     */
+    State snapshot() {
+        if (!dirty) {
+            return null;
+        }
+        dirty = false;
+        return new State(stateFile, nextSlot, new ArrayList<>(freeSlots));
+    }
+
+    static final class State {
+        private final File file;
+        private final int nextSlot;
+        private final List<Integer> freeSlots;
+
+        private State(File file, int nextSlot, List<Integer> freeSlots) {
+            this.file = file;
+            this.nextSlot = nextSlot;
+            this.freeSlots = freeSlots;
+        }
+
+        // 先写临时文件再替换，避免写到一半时留下损坏的文件
+        void write() throws IOException {
+            YamlConfiguration output = new YamlConfiguration();
+            output.set("next-slot", nextSlot);
+            output.set("free-slots", freeSlots);
+
+            File temp = new File(file.getParentFile(), file.getName() + ".tmp");
+            output.save(temp);
+            try {
+                Files.move(temp.toPath(), file.toPath(), StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+            } catch (AtomicMoveNotSupportedException e) {
+                Files.move(temp.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING);
+            }
+        }
+    }
+}
\ No newline at end of file
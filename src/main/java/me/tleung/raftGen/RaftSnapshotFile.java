@@ -0,0 +1,147 @@
+package me.tleung.raftGen;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+
+/**
+ * 木筏数据的二进制快照文件（data.dat）
+ * 整个文件一次顺序读写，没有逐字段的路径查找
+ *
+ * 格式（版本 1，大端序）:
+ *   int 魔数 'RGSN', short 版本
+ *   int 世界数量, 每个世界: 字符串
+ *   int 木筏数量, 每个木筏: long+long 玩家UUID, int 世界索引, int x, int y, int z, 字符串 名称
+ *   int 团队数量, 每个团队: long+long 队长UUID, int 成员数量, 每个成员: long+long UUID
+ * 字符串为 int 长度 + UTF-8 字节，最多 MAX_STRING_LENGTH 字节
+ */
+final class RaftSnapshotFile {
+
+    private static final int MAGIC = 0x5247534E; // "RGSN"
+    static final short VERSION = 1;
+
+    private static final int BUFFER_SIZE = 64 * 1024;
+    private static final int MAX_STRING_LENGTH = 1 << 16;
+
+    private RaftSnapshotFile() {
+    }
+
+    static void write(OutputStream output, DataManager.DataSnapshot snapshot) throws IOException {
+        // 世界名称只写一次，木筏记录里只存索引
+        Map<String, Integer> worldIndex = new LinkedHashMap<>();
+        for (DataManager.DataSnapshot.RaftEntry raft : snapshot.rafts.values()) {
+            worldIndex.putIfAbsent(raft.worldName, worldIndex.size());
+        }
+
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(output, BUFFER_SIZE))) {
+            out.writeInt(MAGIC);
+            out.writeShort(VERSION);
+
+            out.writeInt(worldIndex.size());
+            for (String worldName : worldIndex.keySet()) {
+                writeString(out, worldName);
+            }
+
+            out.writeInt(snapshot.rafts.size());
+            for (DataManager.DataSnapshot.RaftEntry raft : snapshot.rafts.values()) {
+                writeUuid(out, raft.playerId);
+                out.writeInt(worldIndex.get(raft.worldName));
+                out.writeInt((int) Math.floor(raft.x));
+                out.writeInt((int) Math.floor(raft.y));
+                out.writeInt((int) Math.floor(raft.z));
+                writeString(out, raft.name != null ? raft.name : "木筏");
+            }
+
+            out.writeInt(snapshot.teams.size());
+            for (Map.Entry<UUID, List<UUID>> team : snapshot.teams.entrySet()) {
+                writeUuid(out, team.getKey());
+                out.writeInt(team.getValue().size());
+                for (UUID memberId : team.getValue()) {
+                    writeUuid(out, memberId);
+                }
+            }
+        }
+    }
+
+    static DataManager.DataSnapshot read(InputStream input) throws IOException {
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(input, BUFFER_SIZE))) {
+            if (in.readInt() != MAGIC) {
+                throw new IOException("不是木筏快照文件");
+            }
+            short version = in.readShort();
+            if (version != VERSION) {
+                throw new IOException("不支持的快照版本: " + version);
+            }
+
+            int worldCount = in.readInt();
+            String[] worlds = new String[worldCount];
+            for (int i = 0; i < worldCount; i++) {
+                // 同名世界共用同一个字符串
+                worlds[i] = readString(in).intern();
+            }
+
+            DataManager.DataSnapshot snapshot = DataManager.DataSnapshot.empty();
+            int raftCount = in.readInt();
+            for (int i = 0; i < raftCount; i++) {
+                UUID playerId = readUuid(in);
+                String worldName = worlds[in.readInt()];
+                int x = in.readInt();
+                int y = in.readInt();
+                int z = in.readInt();
+                String name = readString(in);
+                snapshot.rafts.put(playerId, new DataManager.DataSnapshot.RaftEntry(playerId, worldName, x, y, z, name));
+            }
+
+            int teamCount = in.readInt();
+            for (int i = 0; i < teamCount; i++) {
+                UUID leaderId = readUuid(in);
+                int memberCount = in.readInt();
+                List<UUID> members = new ArrayList<>(memberCount);
+                for (int j = 0; j < memberCount; j++) {
+                    members.add(readUuid(in));
+                }
+                snapshot.teams.put(leaderId, members);
+            }
+            return snapshot;
+        }
+    }
+
+    private static void writeString(DataOutputStream out, String value) throws IOException {
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        if (bytes.length > MAX_STRING_LENGTH) {
+            // 超长的字符串读取时会被拒绝，写入时截断到上限内最后一个完整的字符
+            int end = MAX_STRING_LENGTH;
+            while (end > 0 && (bytes[end] & 0xC0) == 0x80) {
+                end--;
+            }
+            bytes = Arrays.copyOf(bytes, end);
+        }
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    private static String readString(DataInputStream in) throws IOException {
+        int length = in.readInt();
+        if (length < 0 || length > MAX_STRING_LENGTH) {
+            throw new IOException("字符串长度无效: " + length);
+        }
+        byte[] bytes = new byte[length];
+        in.readFully(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private static void writeUuid(DataOutputStream out, UUID id) throws IOException {
+        out.writeLong(id.getMostSignificantBits());
+        out.writeLong(id.getLeastSignificantBits());
+    }
+
+    private static UUID readUuid(DataInputStream in) throws IOException {
+        return new UUID(in.readLong(), in.readLong());
+    }
+}
\ No newline at end of file
@@ -0,0 +1,179 @@
+package me.tleung.raftGen;
+
+import org.bukkit.Location;
+import org.bukkit.World;
+
+import java.util.*;
+import java.util.function.Consumer;
+
+/**
+ * 按区域（32x32 区块，512x512 格）分桶的木筏位置索引，与 RaftManager 的木筏数据同步维护
+ * 范围查询只检查与范围重叠的区域，不需要遍历所有木筏；注册表模式下也包含不在内存中的木筏
+ * 每个木筏只保存整数方块坐标，世界名称由同一世界的所有木筏共用，不创建 Location 对象
+ * 只在主线程使用
+ */
+final class RaftSpatialIndex {
+
+    private static final int REGION_SHIFT = 9;
+
+    // 世界名称 -> 该世界的区域
+    private final Map<String, WorldRegions> worlds = new HashMap<>();
+    // 玩家ID -> 索引项，删除和移动时据此直接找到所在的桶
+    private final Map<UUID, Entry> entries = new HashMap<>();
+
+    void put(UUID playerId, Location location) {
+        if (location == null || location.getWorld() == null) {
+            remove(playerId);
+            return;
+        }
+        put(playerId, location.getWorld().getName(), location.getBlockX(), location.getBlockY(), location.getBlockZ());
+    }
+
+    void put(UUID playerId, String worldName, int x, int y, int z) {
+        remove(playerId);
+        if (worldName == null) {
+            return;
+        }
+
+        WorldRegions regions = worlds.computeIfAbsent(worldName, WorldRegions::new);
+        Entry entry = new Entry(playerId, regions, x, y, z);
+        regions.buckets.computeIfAbsent(entry.region(), region -> new ArrayList<>(4)).add(entry);
+        entries.put(playerId, entry);
+    }
+
+    void remove(UUID playerId) {
+        Entry entry = entries.remove(playerId);
+        if (entry == null) {
+            return;
+        }
+
+        WorldRegions regions = entry.world;
+        List<Entry> bucket = regions.buckets.get(entry.region());
+        bucket.remove(entry);
+        if (bucket.isEmpty()) {
+            regions.buckets.remove(entry.region());
+            if (regions.buckets.isEmpty()) {
+                worlds.remove(regions.name);
+            }
+        }
+    }
+
+    void clear() {
+        worlds.clear();
+        entries.clear();
+    }
+
+    int size() {
+        return entries.size();
+    }
+
+    /**
+     * 水平距离不超过 radius 的所有木筏，玩家ID -> 位置
+     */
+    Map<UUID, Location> queryRadius(World world, double centerX, double centerZ, double radius) {
+        Map<UUID, Location> result = new HashMap<>();
+        forEachInRadius(world, centerX, centerZ, radius,
+                entry -> result.put(entry.playerId, new Location(world, entry.x, entry.y, entry.z)));
+        return result;
+    }
+
+    /**
+     * 水平距离不超过 maxDistance 的最近的木筏（玩家ID），没有时返回 null
+     */
+    UUID findNearest(World world, double x, double z, double maxDistance) {
+        Entry[] nearest = new Entry[1];
+        double[] nearestDistance = {Double.MAX_VALUE};
+        forEachInRadius(world, x, z, maxDistance, entry -> {
+            double distance = entry.distanceSquared(x, z);
+            if (distance < nearestDistance[0]) {
+                nearestDistance[0] = distance;
+                nearest[0] = entry;
+            }
+        });
+        return nearest[0] != null ? nearest[0].playerId : null;
+    }
+
+    private void forEachInRadius(World world, double centerX, double centerZ, double radius,
+                                 Consumer<Entry> action) {
+        if (world == null || radius < 0) {
+            return;
+        }
+        WorldRegions regions = worlds.get(world.getName());
+        if (regions == null) {
+            return;
+        }
+
+        int minRegionX = (int) Math.floor(centerX - radius) >> REGION_SHIFT;
+        int maxRegionX = (int) Math.floor(centerX + radius) >> REGION_SHIFT;
+        int minRegionZ = (int) Math.floor(centerZ - radius) >> REGION_SHIFT;
+        int maxRegionZ = (int) Math.floor(centerZ + radius) >> REGION_SHIFT;
+        double radiusSquared = radius * radius;
+
+        // 范围比已有的区域还大时，直接遍历这个世界的所有区域
+        long span = (long) (maxRegionX - minRegionX + 1) * (maxRegionZ - minRegionZ + 1);
+        if (span > regions.buckets.size()) {
+            for (List<Entry> bucket : regions.buckets.values()) {
+                visit(bucket, centerX, centerZ, radiusSquared, action);
+            }
+            return;
+        }
+
+        for (int regionX = minRegionX; regionX <= maxRegionX; regionX++) {
+            for (int regionZ = minRegionZ; regionZ <= maxRegionZ; regionZ++) {
+                List<Entry> bucket = regions.buckets.get(regionKey(regionX, regionZ));
+                if (bucket != null) {
+                    visit(bucket, centerX, centerZ, radiusSquared, action);
+                }
+            }
+        }
+    }
+
+    private static void visit(List<Entry> bucket, double centerX, double centerZ, double radiusSquared,
+                              Consumer<Entry> action) {
+        for (Entry entry : bucket) {
+            if (entry.distanceSquared(centerX, centerZ) <= radiusSquared) {
+                action.accept(entry);
+            }
+        }
+    }
+
+    private static long regionKey(int regionX, int regionZ) {
+        return ((long) regionX << 32) | (regionZ & 0xFFFFFFFFL);
+    }
+
+    private static final class WorldRegions {
+        final String name;
+        // 区域坐标 -> 该区域内的木筏，每个区域只有几个木筏，用列表即可
+        final Map<Long, List<Entry>> buckets = new HashMap<>();
+
+        WorldRegions(String name) {
+            this.name = name;
+        }
+    }
+
+    private static final class Entry {
+        final UUID playerId;
+        final WorldRegions world;
+        final int x;
+        final int y;
+        final int z;
+
+        Entry(UUID playerId, WorldRegions world, int x, int y, int z) {
+            this.playerId = playerId;
+            this.world = world;
+            this.x = x;
+            this.y = y;
+            this.z = z;
+        }
+
+        long region() {
+            return regionKey(x >> REGION_SHIFT, z >> REGION_SHIFT);
+        }
+
+        double distanceSquared(double otherX, double otherZ) {
+            double dx = x - otherX;
+            double dz = z - otherZ;
+            return dx * dx + dz * dz;
+        }
+    }
+}
\ No newline at end of file
@@ -0,0 +1,110 @@
+package me.tleung.raftGen;
+
+import org.bukkit.Location;
+import org.bukkit.World;
+
+import java.util.UUID;
+import java.util.function.Supplier;
+import java.util.function.UnaryOperator;
+
+/**
+ * 按位置查询木筏，所有查询都是 O(1) 的网格计算加一次哈希查找，可以在每次方块事件中调用
+ * 木筏世界按 raft.spacing 划分成以槽位为中心的格子，格子内的方块属于该槽位上的木筏；
+ * 不在槽位上的木筏（指定位置创建）通过空间索引查找附近的区域
+ * 只在主线程使用
+ */
+public class RaftSpatialLookup {
+
+    // 木筏本体是以中心为原点的 3x3 平台
+    private static final int RAFT_RADIUS = 1;
+
+    private final RaftSlotAllocator slots;
+    private final RaftSpatialIndex index;
+    private final Supplier<World> raftWorld;
+    // 玩家ID -> 木筏所属玩家（队伍成员对应队长）
+    private final UnaryOperator<UUID> ownerOf;
+
+    RaftSpatialLookup(RaftSlotAllocator slots, RaftSpatialIndex index, Supplier<World> raftWorld, UnaryOperator<UUID> ownerOf) {
+        this.slots = slots;
+        this.index = index;
+        this.raftWorld = raftWorld;
+        this.ownerOf = ownerOf;
+    }
+
+    /**
+     * 方块所在格子的木筏所属玩家（队伍木筏为队长），格子内没有木筏时返回 null
+     */
+    public UUID getRaftOwnerAt(World world, int blockX, int blockZ) {
+        if (isRaftWorld(world)) {
+            UUID owner = slots.getOwner(slots.nearestSlot(blockX, blockZ));
+            if (owner != null) {
+                return owner;
+            }
+        }
+
+        UUID nearest = index.findNearest(world, blockX + 0.5, blockZ + 0.5, slots.getSpacing() / 2.0);
+        return nearest != null ? ownerOf.apply(nearest) : null;
+    }
+
+    public UUID getRaftOwnerAt(Location location) {
+        if (location == null) {
+            return null;
+        }
+        return getRaftOwnerAt(location.getWorld(), location.getBlockX(), location.getBlockZ());
+    }
+
+    /**
+     * 区块中心所在格子的木筏所属玩家；木筏间距不小于 16 时区块最多跨两个格子，以中心为准
+     */
+    public UUID getRaftOwnerAtChunk(World world, int chunkX, int chunkZ) {
+        return getRaftOwnerAt(world, (chunkX << 4) + 8, (chunkZ << 4) + 8);
+    }
+
+    /**
+     * 方块是否在已有木筏的 3x3 平台范围内
+     */
+    public boolean isInRaftArea(World world, int blockX, int blockZ) {
+        int slot = slots.nearestSlot(blockX, blockZ);
+        if (!isRaftWorld(world) || slots.getOwner(slot) == null) {
+            // 指定位置创建的木筏：平台中心与方块中心的水平距离在半径以内
+            return index.findNearest(world, blockX, blockZ, RAFT_RADIUS * Math.sqrt(2)) != null;
+        }
+        long grid = RaftSlotAllocator.slotToGrid(slot);
+        int centerX = RaftSlotAllocator.gridX(grid) * slots.getSpacing();
+        int centerZ = RaftSlotAllocator.gridZ(grid) * slots.getSpacing();
+        return Math.abs(blockX - centerX) <= RAFT_RADIUS && Math.abs(blockZ - centerZ) <= RAFT_RADIUS;
+    }
+
+    /**
+     * 离方块最近的木筏槽位中心（方块所在的格子），不论该槽位是否已有木筏
+     * @return {x, z}
+     */
+    public int[] getNearestSlotCenter(int blockX, int blockZ) {
+        long grid = slots.nearestGrid(blockX, blockZ);
+        return new int[]{RaftSlotAllocator.gridX(grid) * slots.getSpacing(), RaftSlotAllocator.gridZ(grid) * slots.getSpacing()};
+    }
+
+    /**
+     * 离方块最近的木筏中心，方块所在格子内没有木筏时返回 null
+     */
+    public Location getNearestRaftCenter(World world, int blockX, int blockZ) {
+        if (!isRaftWorld(world)) {
+            return null;
+        }
+
+        int slot = slots.nearestSlot(blockX, blockZ);
+        if (slots.getOwner(slot) == null) {
+            return null;
+        }
+        return slots.getLocation(world, slot, 62);
+    }
+
+    public int getSpacing() {
+        return slots.getSpacing();
+    }
+
+    private boolean isRaftWorld(World world) {
+        World current = raftWorld.get();
+        return world != null && world.equals(current);
+    }
+}
\ No newline at end of file
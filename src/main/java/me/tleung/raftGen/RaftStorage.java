@@ -0,0 +1,63 @@
+package me.tleung.raftGen;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * 木筏和团队数据的存储后端
+ * 所有方法都在 DataManager 的 I/O 线程调用，实现不需要考虑并发
+ */
+interface RaftStorage {
+
+    /**
+     * 后端名称，对应配置 storage.backend
+     */
+    String getName();
+
+    /**
+     * 是否已有这个后端保存的数据
+     */
+    boolean exists();
+
+    /**
+     * 读取全部数据
+     */
+    DataManager.DataSnapshot load() throws IOException;
+
+    /**
+     * 批量写入：完整快照替换全部数据，增量快照只修改其中的条目
+     */
+    void apply(DataManager.DataSnapshot changes) throws IOException;
+
+    default void upsertRaft(DataManager.DataSnapshot.RaftEntry raft) throws IOException {
+        DataManager.DataSnapshot changes = DataManager.DataSnapshot.delta();
+        changes.rafts.put(raft.playerId, raft);
+        apply(changes);
+    }
+
+    default void deleteRaft(UUID playerId) throws IOException {
+        DataManager.DataSnapshot changes = DataManager.DataSnapshot.delta();
+        changes.removedRafts.add(playerId);
+        apply(changes);
+    }
+
+    default void upsertTeam(UUID leaderId, List<UUID> members) throws IOException {
+        DataManager.DataSnapshot changes = DataManager.DataSnapshot.delta();
+        changes.teams.put(leaderId, members);
+        apply(changes);
+    }
+
+    default void deleteTeam(UUID leaderId) throws IOException {
+        DataManager.DataSnapshot changes = DataManager.DataSnapshot.delta();
+        changes.removedTeams.add(leaderId);
+        apply(changes);
+    }
+
+    /**
+     * 数据已导入其他后端后调用：把文件改名保留，不再读取
+     */
+    void retire();
+
+    void close();
+}
\ No newline at end of file
@@ -0,0 +1,219 @@
+package me.tleung.raftGen;
+
+import java.io.File;
+import java.io.IOException;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.*;
+import java.util.logging.Logger;
+
+/**
+ * 嵌入式 SQLite 存储（rafts.db），使用服务器自带的 SQLite JDBC 驱动
+ * 每次写入是一个事务，同类修改用预编译语句批量执行，只改动变更的行
+ */
+final class SqliteRaftStorage implements RaftStorage {
+
+    static final String DRIVER = "org.sqlite.JDBC";
+
+    private static final String UPSERT_RAFT =
+            "INSERT OR REPLACE INTO rafts (player_id, world, x, y, z, name) VALUES (?, ?, ?, ?, ?, ?)";
+    private static final String DELETE_RAFT = "DELETE FROM rafts WHERE player_id = ?";
+    private static final String INSERT_MEMBER = "INSERT OR REPLACE INTO team_members (leader_id, member_id) VALUES (?, ?)";
+    private static final String DELETE_TEAM = "DELETE FROM team_members WHERE leader_id = ?";
+
+    private final File file;
+    private final Logger logger;
+    private Connection connection;
+
+    SqliteRaftStorage(File dataFolder, Logger logger) {
+        this.file = new File(dataFolder, "rafts.db");
+        this.logger = logger;
+    }
+
+    /**
+     * 服务器是否提供 SQLite 驱动
+     */
+    static boolean isDriverAvailable() {
+        try {
+            Class.forName(DRIVER);
+            return true;
+        } catch (ClassNotFoundException e) {
+            return false;
+        }
+    }
+
+    @Override
+    public String getName() {
+        return "sqlite";
+    }
+
+    @Override
+    public boolean exists() {
+        return file.exists();
+    }
+
+    @Override
+    public DataManager.DataSnapshot load() throws IOException {
+        DataManager.DataSnapshot snapshot = DataManager.DataSnapshot.empty();
+        try (Statement statement = connection().createStatement()) {
+            try (ResultSet rows = statement.executeQuery("SELECT player_id, world, x, y, z, name FROM rafts")) {
+                while (rows.next()) {
+                    UUID playerId = parseUuid(rows.getString(1));
+                    if (playerId != null) {
+                        snapshot.rafts.put(playerId, new DataManager.DataSnapshot.RaftEntry(playerId,
+                                rows.getString(2), rows.getDouble(3), rows.getDouble(4), rows.getDouble(5), rows.getString(6)));
+                    }
+                }
+            }
+
+            try (ResultSet rows = statement.executeQuery("SELECT leader_id, member_id FROM team_members")) {
+                while (rows.next()) {
+                    UUID leaderId = parseUuid(rows.getString(1));
+                    UUID memberId = parseUuid(rows.getString(2));
+                    if (leaderId != null && memberId != null) {
+                        snapshot.teams.computeIfAbsent(leaderId, id -> new ArrayList<>()).add(memberId);
+                    }
+                }
+            }
+            connection.commit();
+        } catch (SQLException e) {
+            throw new IOException("读取 " + file.getName() + " 失败", e);
+        }
+        return snapshot;
+    }
+
+    @Override
+    public void apply(DataManager.DataSnapshot changes) throws IOException {
+        Connection db;
+        try {
+            db = connection();
+        } catch (SQLException e) {
+            throw new IOException("无法打开 " + file.getName(), e);
+        }
+
+        try {
+            if (changes.full) {
+                try (Statement statement = db.createStatement()) {
+                    statement.executeUpdate("DELETE FROM rafts");
+                    statement.executeUpdate("DELETE FROM team_members");
+                }
+            }
+
+            try (PreparedStatement delete = db.prepareStatement(DELETE_RAFT)) {
+                for (UUID playerId : changes.removedRafts) {
+                    delete.setString(1, playerId.toString());
+                    delete.addBatch();
+                }
+                delete.executeBatch();
+            }
+
+            try (PreparedStatement upsert = db.prepareStatement(UPSERT_RAFT)) {
+                for (DataManager.DataSnapshot.RaftEntry raft : changes.rafts.values()) {
+                    upsert.setString(1, raft.playerId.toString());
+                    upsert.setString(2, raft.worldName);
+                    upsert.setDouble(3, raft.x);
+                    upsert.setDouble(4, raft.y);
+                    upsert.setDouble(5, raft.z);
+                    upsert.setString(6, raft.name);
+                    upsert.addBatch();
+                }
+                upsert.executeBatch();
+            }
+
+            // 团队成员整体替换：先删除变更团队的所有成员，再写入当前成员
+            try (PreparedStatement delete = db.prepareStatement(DELETE_TEAM)) {
+                for (UUID leaderId : changes.removedTeams) {
+                    delete.setString(1, leaderId.toString());
+                    delete.addBatch();
+                }
+                for (UUID leaderId : changes.teams.keySet()) {
+                    delete.setString(1, leaderId.toString());
+                    delete.addBatch();
+                }
+                delete.executeBatch();
+            }
+
+            try (PreparedStatement insert = db.prepareStatement(INSERT_MEMBER)) {
+                for (Map.Entry<UUID, List<UUID>> team : changes.teams.entrySet()) {
+                    for (UUID memberId : team.getValue()) {
+                        insert.setString(1, team.getKey().toString());
+                        insert.setString(2, memberId.toString());
+                        insert.addBatch();
+                    }
+                }
+                insert.executeBatch();
+            }
+
+            db.commit();
+        } catch (SQLException e) {
+            try {
+                db.rollback();
+            } catch (SQLException rollbackError) {
+                e.addSuppressed(rollbackError);
+            }
+            throw new IOException("写入 " + file.getName() + " 失败", e);
+        }
+    }
+
+    @Override
+    public void retire() {
+        close();
+        File migrated = new File(file.getParentFile(), file.getName() + ".migrated");
+        if (file.exists() && !file.renameTo(migrated)) {
+            logger.warning("无法重命名旧数据库文件: " + file.getName());
+        }
+    }
+
+    @Override
+    public void close() {
+        if (connection != null) {
+            try {
+                connection.close();
+            } catch (SQLException e) {
+                logger.warning("关闭数据库连接失败: " + e.getMessage());
+            }
+            connection = null;
+        }
+    }
+
+    // 第一次使用时打开连接并建表
+    private Connection connection() throws SQLException {
+        if (connection != null) {
+            return connection;
+        }
+
+        try {
+            Class.forName(DRIVER);
+        } catch (ClassNotFoundException e) {
+            throw new SQLException("找不到 SQLite 驱动: " + DRIVER, e);
+        }
+
+        Connection db = DriverManager.getConnection("jdbc:sqlite:" + file.getAbsolutePath());
+        try (Statement statement = db.createStatement()) {
+            statement.execute("PRAGMA journal_mode=WAL");
+            statement.execute("PRAGMA synchronous=FULL");
+            statement.execute("CREATE TABLE IF NOT EXISTS rafts ("
+                    + "player_id TEXT PRIMARY KEY, world TEXT NOT NULL, "
+                    + "x REAL NOT NULL, y REAL NOT NULL, z REAL NOT NULL, name TEXT)");
+            statement.execute("CREATE TABLE IF NOT EXISTS team_members ("
+                    + "leader_id TEXT NOT NULL, member_id TEXT NOT NULL, "
+                    + "PRIMARY KEY (leader_id, member_id))");
+        }
+        db.setAutoCommit(false);
+        connection = db;
+        return db;
+    }
+
+    private UUID parseUuid(String value) {
+        try {
+            return UUID.fromString(value);
+        } catch (IllegalArgumentException | NullPointerException e) {
+            logger.warning("无效的UUID格式: " + value);
+            return null;
+        }
+    }
+}
\ No newline at end of file
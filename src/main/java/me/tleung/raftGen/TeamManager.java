@@ -12,6 +12,8 @@ public class TeamManager {
     private final HashMap<UUID, Set<UUID>> teamMembers; // 隊長ID -> 隊員集合
     private final HashMap<UUID, UUID> teamInvites; // 被邀請玩家ID -> 邀請者隊長ID
     private final HashMap<UUID, Long> inviteExpiry; // 邀請過期時間
+    private final Set<UUID> dirtyTeams = new HashSet<>(); // 自上次保存以來變更過的隊伍（隊長ID）
+    private RaftJournal journal; // 變更日誌，由 RaftManager 設置
 
     public TeamManager(RaftGen plugin) {
         this.plugin = plugin;
@@ -32,6 +34,7 @@ public class TeamManager {
         playerTeams.put(leaderId, leaderId);
         teamMembers.put(leaderId, new HashSet<>());
         teamMembers.get(leaderId).add(leaderId);
+        markTeamDirty(leaderId);
 
         leader.sendMessage("§a隊伍創建成功! 你是隊長");
         leader.sendMessage("§6使用 §a/raft team invite <玩家名稱> §6來邀請隊員");
@@ -56,6 +59,7 @@ public class TeamManager {
                 }
             }
             teamMembers.remove(leaderId);
+            markTeamDirty(leaderId);
         }
 
         // 清除相關邀請
@@ -156,6 +160,7 @@ public class TeamManager {
         inviteExpiry.remove(playerId);
         playerTeams.put(playerId, leaderId);
         teamMembers.get(leaderId).add(playerId);
+        markTeamDirty(leaderId);
 
         player.sendMessage("§a你已成功加入 " + leader.getName() + " 的隊伍!");
         leader.sendMessage("§a玩家 " + player.getName() + " 已加入你的隊伍!");
@@ -198,6 +203,7 @@ public class TeamManager {
 
         playerTeams.remove(playerId);
         teamMembers.get(leaderId).remove(playerId);
+        markTeamDirty(leaderId);
 
         player.sendMessage("§a你已離開隊伍!");
         broadcastToTeam(leaderId, "§6玩家 " + player.getName() + " 離開了隊伍!");
@@ -237,6 +243,7 @@ public class TeamManager {
 
         playerTeams.remove(targetId);
         teamMembers.get(leaderId).remove(targetId);
+        markTeamDirty(leaderId);
 
         leader.sendMessage("§a已將 " + target.getName() + " 踢出隊伍!");
         target.sendMessage("§c你已被隊長踢出隊伍!");
@@ -413,6 +420,41 @@ public class TeamManager {
         return new HashSet<>(playerTeams.keySet());
     }
 
+    /**
+     * 設置變更日誌 (數據持久化使用)
+     */
+    public void setJournal(RaftJournal journal) {
+        this.journal = journal;
+    }
+
+    // 記錄隊伍變更：寫入日誌，並在下次保存時寫入該隊伍
+    private void markTeamDirty(UUID leaderId) {
+        dirtyTeams.add(leaderId);
+        if (journal != null) {
+            journal.logTeam(leaderId, isTeamLeader(leaderId) ? teamMembers.get(leaderId) : null);
+        }
+    }
+
+    /**
+     * 是否有尚未保存的隊伍變更 (數據持久化使用)
+     */
+    public boolean hasDirtyTeams() {
+        return !dirtyTeams.isEmpty();
+    }
+
+    public int getDirtyTeamCount() {
+        return dirtyTeams.size();
+    }
+
+    /**
+     * 取出並清空變更過的隊伍（隊長ID）(數據持久化使用)
+     */
+    public Set<UUID> drainDirtyTeams() {
+        Set<UUID> changed = new HashSet<>(dirtyTeams);
+        dirtyTeams.clear();
+        return changed;
+    }
+
     /**
      * 加載團隊數據 (數據持久化使用)
      */
@@ -552,6 +594,8 @@ public class TeamManager {
         // 更新團隊成員映射
         teamMembers.put(newLeaderId, teamMembers.get(currentLeaderId));
         teamMembers.remove(currentLeaderId);
+        markTeamDirty(currentLeaderId);
+        markTeamDirty(newLeaderId);
 
         broadcastToTeam(newLeaderId, "§6隊長權限已轉移給 " + newLeader.getName() + "!");
         currentLeader.sendMessage("§a你已將隊長權限轉移給 " + newLeader.getName());
@@ -0,0 +1,111 @@
+package me.tleung.raftGen;
+
+import org.bukkit.configuration.ConfigurationSection;
+import org.bukkit.configuration.InvalidConfigurationException;
+import org.bukkit.configuration.file.YamlConfiguration;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+import java.util.logging.Logger;
+
+/**
+ * YAML 存储（data.yml），与旧版本插件的数据文件格式相同
+ * rafts.<uuid>.location.world/x/y/z、rafts.<uuid>.name、teams.<uuid>.members
+ */
+final class YamlRaftStorage extends FileRaftStorage {
+
+    YamlRaftStorage(File dataFolder, int backupCount, Logger logger) {
+        super(new File(dataFolder, "data.yml"), backupCount, logger);
+    }
+
+    @Override
+    public String getName() {
+        return "yaml";
+    }
+
+    @Override
+    protected DataManager.DataSnapshot decode(byte[] data) throws IOException {
+        YamlConfiguration dataConfig = new YamlConfiguration();
+        try {
+            dataConfig.loadFromString(new String(data, StandardCharsets.UTF_8));
+        } catch (InvalidConfigurationException e) {
+            throw new IOException(e);
+        }
+
+        DataManager.DataSnapshot snapshot = DataManager.DataSnapshot.empty();
+
+        ConfigurationSection rafts = dataConfig.getConfigurationSection("rafts");
+        if (rafts != null) {
+            for (String playerIdStr : rafts.getKeys(false)) {
+                try {
+                    UUID playerId = UUID.fromString(playerIdStr);
+                    String path = "rafts." + playerIdStr;
+
+                    // 加载位置和名称
+                    String worldName = dataConfig.getString(path + ".location.world");
+                    if (worldName == null) {
+                        continue;
+                    }
+                    snapshot.rafts.put(playerId, new DataManager.DataSnapshot.RaftEntry(playerId, worldName,
+                            dataConfig.getDouble(path + ".location.x"),
+                            dataConfig.getDouble(path + ".location.y"),
+                            dataConfig.getDouble(path + ".location.z"),
+                            dataConfig.getString(path + ".name", "木筏")));
+
+                } catch (IllegalArgumentException e) {
+                    logger.warning("无效的UUID格式: " + playerIdStr);
+                }
+            }
+        }
+
+        ConfigurationSection teams = dataConfig.getConfigurationSection("teams");
+        if (teams != null) {
+            for (String leaderIdStr : teams.getKeys(false)) {
+                try {
+                    UUID leaderId = UUID.fromString(leaderIdStr);
+                    List<UUID> members = new ArrayList<>();
+                    for (String memberIdStr : dataConfig.getStringList("teams." + leaderIdStr + ".members")) {
+                        try {
+                            members.add(UUID.fromString(memberIdStr));
+                        } catch (IllegalArgumentException e) {
+                            logger.warning("无效的团队成员UUID: " + memberIdStr);
+                        }
+                    }
+                    snapshot.teams.put(leaderId, members);
+
+                } catch (IllegalArgumentException e) {
+                    logger.warning("无效的队长UUID: " + leaderIdStr);
+                }
+            }
+        }
+        return snapshot;
+    }
+
+    @Override
+    protected byte[] encode(DataManager.DataSnapshot snapshot) {
+        YamlConfiguration output = new YamlConfiguration();
+
+        // 保存木筏数据 - 只保存位置和名称
+        for (DataManager.DataSnapshot.RaftEntry raft : snapshot.rafts.values()) {
+            String path = "rafts." + raft.playerId.toString();
+            output.set(path + ".location.world", raft.worldName);
+            output.set(path + ".location.x", raft.x);
+            output.set(path + ".location.y", raft.y);
+            output.set(path + ".location.z", raft.z);
+            output.set(path + ".name", raft.name);
+        }
+
+        // 保存团队数据
+        for (Map.Entry<UUID, List<UUID>> team : snapshot.teams.entrySet()) {
+            List<String> memberList = new ArrayList<>();
+            for (UUID memberId : team.getValue()) {
+                memberList.add(memberId.toString());
+            }
+            output.set("teams." + team.getKey().toString() + ".members", memberList);
+        }
+
+        return output.saveToString().getBytes(StandardCharsets.UTF_8);
+    }
+}
\ No newline at end of file
@@ -8,6 +8,7 @@ import org.jetbrains.annotations.Nullable;
 
 import java.util.Map;
 import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
 
 public interface RaftGenAPI {
 
@@ -25,6 +26,15 @@ public interface RaftGenAPI {
      */
     boolean createRaft(@NotNull Player player, @Nullable Location location);
 
+    /**
+     * 异步为玩家创建木筏，区块在后台加载，方块放置和传送在主线程完成
+     * @param player 玩家
+     * @param location 指定位置（可选，为null时自动生成）
+     * @return 创建完成后得到是否成功
+     */
+    @NotNull
+    CompletableFuture<Boolean> createRaftAsync(@NotNull Player player, @Nullable Location location);
+
     /**
      * 获取玩家的木筏位置
      * @param playerId 玩家UUID
@@ -91,6 +101,23 @@ public interface RaftGenAPI {
     @NotNull
     Map<UUID, Location> getAllRafts();
 
+    /**
+     * 获取指定范围内的木筏（按水平距离）
+     * @param center 中心位置
+     * @param radius 半径（格）
+     * @return 玩家UUID到木筏位置的映射，队伍成员与队长的木筏位置相同
+     */
+    @NotNull
+    Map<UUID, Location> getRaftsInRadius(@NotNull Location center, double radius);
+
+    /**
+     * 获取位置所在的木筏，每个木筏的范围是以木筏为中心、边长为木筏间距的正方形
+     * @param location 位置
+     * @return 木筏所属玩家UUID（队伍木筏为队长），不在任何木筏范围内返回null
+     */
+    @Nullable
+    UUID getRaftAt(@NotNull Location location);
+
     /**
      * 获取木筏总数量
      * @return 木筏数量
@@ -139,4 +166,29 @@ public interface RaftGenAPI {
      */
     @NotNull
     Map<UUID, String> getAllRaftNames();
+
+    /**
+     * 以木筏世界原点为中心异步预生成区块
+     * @param radius 区块半径
+     * @return 是否成功开始（已有预生成任务时返回false）
+     */
+    boolean startPregeneration(int radius);
+
+    /**
+     * 停止区块预生成
+     * @param keepProgress 是否保留进度以便之后继续
+     */
+    void stopPregeneration(boolean keepProgress);
+
+    /**
+     * 检查是否正在预生成区块
+     * @return 是否正在预生成
+     */
+    boolean isPregenerating();
+
+    /**
+     * 获取区块预生成进度
+     * @return 进度，范围 0.0 - 1.0
+     */
+    double getPregenerationProgress();
 }
\ No newline at end of file
@@ -12,6 +12,7 @@ import org.jetbrains.annotations.Nullable;
 import java.util.Map;
 import java.util.Set;
 import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
 
 public class RaftGenAPIImpl implements RaftGenAPI {
     private final RaftGen plugin;
@@ -41,6 +42,12 @@ public class RaftGenAPIImpl implements RaftGenAPI {
         return true;
     }
 
+    @NotNull
+    @Override
+    public CompletableFuture<Boolean> createRaftAsync(@NotNull Player player, @Nullable Location location) {
+        return raftManager.createRaftAsync(player, location);
+    }
+
     @Nullable
     @Override
     public Location getRaftLocation(@NotNull UUID playerId) {
@@ -110,6 +117,18 @@ public class RaftGenAPIImpl implements RaftGenAPI {
         return raftManager.getAllRafts();
     }
 
+    @NotNull
+    @Override
+    public Map<UUID, Location> getRaftsInRadius(@NotNull Location center, double radius) {
+        return raftManager.getRaftsInRadius(center, radius);
+    }
+
+    @Nullable
+    @Override
+    public UUID getRaftAt(@NotNull Location location) {
+        return raftManager.getRaftAt(location);
+    }
+
     @Override
     public int getTotalRaftCount() {
         return raftManager.getRaftCount();
@@ -149,6 +168,26 @@ public class RaftGenAPIImpl implements RaftGenAPI {
         return raftManager.getAllRaftNames();
     }
 
+    @Override
+    public boolean startPregeneration(int radius) {
+        return raftManager.getChunkPregenerator().startRadius(raftManager.getRaftWorld(), 0, 0, radius, null);
+    }
+
+    @Override
+    public void stopPregeneration(boolean keepProgress) {
+        raftManager.getChunkPregenerator().stop(keepProgress);
+    }
+
+    @Override
+    public boolean isPregenerating() {
+        return raftManager.getChunkPregenerator().isRunning();
+    }
+
+    @Override
+    public double getPregenerationProgress() {
+        return raftManager.getChunkPregenerator().getProgress();
+    }
+
     // TeamAPI 实现类
     private class TeamAPIImpl implements TeamAPI {
         @Override
@@ -0,0 +1,50 @@
+package me.tleung.raftGen.generator;
+
+import org.bukkit.Material;
+import org.bukkit.generator.ChunkGenerator;
+
+/**
+ * 单个区块的海底高度图
+ * 在 generateNoise 中计算一次，之后的表面阶段直接读取，不再逐格向下扫描方块
+ */
+public final class ChunkHeightmap {
+
+    public static final int NO_SURFACE = -1;
+
+    private final int[] heights = new int[16 * 16];
+
+    public int get(int x, int z) {
+        return heights[(z << 4) | x];
+    }
+
+    public void set(int x, int z, int y) {
+        heights[(z << 4) | x] = y;
+    }
+
+    /**
+     * 从已有的区块数据重建高度图（缓存未命中时的后备方案）
+     */
+    public static ChunkHeightmap scan(ChunkGenerator.ChunkData chunkData, int seaLevel, int minY) {
+        ChunkHeightmap heightmap = new ChunkHeightmap();
+        for (int x = 0; x < 16; x++) {
+            for (int z = 0; z < 16; z++) {
+                int surfaceY = NO_SURFACE;
+                for (int y = seaLevel - 1; y >= minY; y--) {
+                    if (isSeaBedMaterial(chunkData.getType(x, y, z))) {
+                        surfaceY = y;
+                        break;
+                    }
+                }
+                heightmap.set(x, z, surfaceY);
+            }
+        }
+        return heightmap;
+    }
+
+    /**
+     * 判断方块是否属于海底表面
+     */
+    public static boolean isSeaBedMaterial(Material material) {
+        return material == Material.SAND || material == Material.GRAVEL || material == Material.CLAY || material == Material.STONE;
+    }
+}
\ No newline at end of file
@@ -0,0 +1,67 @@
+package me.tleung.raftGen.generator;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * 有容量上限的高度图缓存，按 世界 + 区块坐标 索引
+ * 超出容量时淘汰最久未使用的条目
+ */
+public final class ChunkHeightmapCache {
+
+    private final Map<Key, ChunkHeightmap> entries;
+
+    public ChunkHeightmapCache(int maxEntries) {
+        this.entries = new LinkedHashMap<>(64, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Key, ChunkHeightmap> eldest) {
+                return size() > maxEntries;
+            }
+        };
+    }
+
+    public synchronized void put(UUID worldId, int chunkX, int chunkZ, ChunkHeightmap heightmap) {
+        entries.put(new Key(worldId, chunkX, chunkZ), heightmap);
+    }
+
+    public synchronized ChunkHeightmap get(UUID worldId, int chunkX, int chunkZ) {
+        return entries.get(new Key(worldId, chunkX, chunkZ));
+    }
+
+    /**
+     * 取出并移除高度图，用于最后一个读取它的生成阶段
+     */
+    public synchronized ChunkHeightmap remove(UUID worldId, int chunkX, int chunkZ) {
+        return entries.remove(new Key(worldId, chunkX, chunkZ));
+    }
+
+    public synchronized int size() {
+        return entries.size();
+    }
+
+    private static final class Key {
+        private final UUID worldId;
+        private final int chunkX;
+        private final int chunkZ;
+
+        private Key(UUID worldId, int chunkX, int chunkZ) {
+            this.worldId = worldId;
+            this.chunkX = chunkX;
+            this.chunkZ = chunkZ;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (!(o instanceof Key)) return false;
+            Key other = (Key) o;
+            return chunkX == other.chunkX && chunkZ == other.chunkZ && worldId.equals(other.worldId);
+        }
+
+        @Override
+        public int hashCode() {
+            return (worldId.hashCode() * 31 + chunkX) * 31 + chunkZ;
+        }
+    }
+}
\ No newline at end of file
@@ -0,0 +1,65 @@
+package me.tleung.raftGen.generator;
+
+/**
+ * 低频噪声的粗网格采样
+ * 只在对齐到 step 倍数的世界坐标上计算噪声，其余位置用 Catmull-Rom 双三次插值得到。
+ * 网格点按世界坐标对齐，相邻区块在边界处得到完全一致的插值结果
+ */
+public final class CoarseNoiseGrid implements NoiseSampler {
+
+    private final int step;
+    private final int originCellX;
+    private final int originCellZ;
+    private final int sizeX;
+    private final int sizeZ;
+    private final double[] values;
+
+    /**
+     * 建立覆盖 [minX, maxX] x [minZ, maxZ] 的网格（含双三次插值所需的边界点）
+     */
+    public CoarseNoiseGrid(int minX, int minZ, int maxX, int maxZ, int step, NoiseSampler sampler) {
+        this.step = step;
+        this.originCellX = Math.floorDiv(minX, step) - 1;
+        this.originCellZ = Math.floorDiv(minZ, step) - 1;
+        this.sizeX = Math.floorDiv(maxX, step) + 2 - originCellX + 1;
+        this.sizeZ = Math.floorDiv(maxZ, step) + 2 - originCellZ + 1;
+        this.values = new double[sizeX * sizeZ];
+
+        for (int i = 0; i < sizeX; i++) {
+            int sampleX = (originCellX + i) * step;
+            for (int j = 0; j < sizeZ; j++) {
+                values[i * sizeZ + j] = sampler.sample(sampleX, (originCellZ + j) * step);
+            }
+        }
+    }
+
+    @Override
+    public double sample(int worldX, int worldZ) {
+        int cellX = Math.floorDiv(worldX, step);
+        int cellZ = Math.floorDiv(worldZ, step);
+        double tx = (worldX - cellX * step) / (double) step;
+        double tz = (worldZ - cellZ * step) / (double) step;
+
+        // 4x4 邻域的左上角
+        int i = cellX - 1 - originCellX;
+        int j = cellZ - 1 - originCellZ;
+        if (i < 0 || j < 0 || i + 3 >= sizeX || j + 3 >= sizeZ) {
+            throw new IllegalArgumentException("坐标超出噪声网格范围: " + worldX + ", " + worldZ);
+        }
+
+        double r0 = cubic(row(i, j), row(i + 1, j), row(i + 2, j), row(i + 3, j), tx);
+        double r1 = cubic(row(i, j + 1), row(i + 1, j + 1), row(i + 2, j + 1), row(i + 3, j + 1), tx);
+        double r2 = cubic(row(i, j + 2), row(i + 1, j + 2), row(i + 2, j + 2), row(i + 3, j + 2), tx);
+        double r3 = cubic(row(i, j + 3), row(i + 1, j + 3), row(i + 2, j + 3), row(i + 3, j + 3), tx);
+        return cubic(r0, r1, r2, r3, tz);
+    }
+
+    private double row(int i, int j) {
+        return values[i * sizeZ + j];
+    }
+
+    // Catmull-Rom 样条，在 p1 (t=0) 与 p2 (t=1) 之间插值
+    private static double cubic(double p0, double p1, double p2, double p3, double t) {
+        return p1 + 0.5 * t * (p2 - p0 + t * (2.0 * p0 - 5.0 * p1 + 4.0 * p2 - p3 + t * (3.0 * (p1 - p2) + p3 - p0)));
+    }
+}
\ No newline at end of file
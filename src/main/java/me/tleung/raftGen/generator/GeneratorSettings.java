@@ -0,0 +1,74 @@
+package me.tleung.raftGen.generator;
+
+import org.bukkit.configuration.file.FileConfiguration;
+
+import java.util.logging.Logger;
+
+/**
+ * 区块生成器配置的不可变快照
+ * 生成线程只读取快照，重新加载配置时整体替换，不会看到修改到一半的状态
+ */
+public final class GeneratorSettings {
+
+    public static final int DEFAULT_SAMPLING_STEP = 8;
+    public static final int DEFAULT_REGION_CACHE_SIZE = 256;
+    public static final int DEFAULT_RAFT_SPACING = 200;
+
+    private static final GeneratorSettings DEFAULTS = new GeneratorSettings(true, DEFAULT_SAMPLING_STEP, DEFAULT_REGION_CACHE_SIZE, DEFAULT_RAFT_SPACING);
+
+    private final boolean interpolatedSampling;
+    private final int samplingStep;
+    private final int regionCacheSize;
+    // 木筏槽位间距，RaftManager 尚未就绪时生成器用它计算最近的槽位
+    private final int raftSpacing;
+
+    private GeneratorSettings(boolean interpolatedSampling, int samplingStep, int regionCacheSize, int raftSpacing) {
+        this.interpolatedSampling = interpolatedSampling;
+        this.samplingStep = samplingStep;
+        this.regionCacheSize = regionCacheSize;
+        this.raftSpacing = raftSpacing;
+    }
+
+    public static GeneratorSettings defaults() {
+        return DEFAULTS;
+    }
+
+    public static GeneratorSettings of(boolean interpolatedSampling, int samplingStep, int regionCacheSize) {
+        return new GeneratorSettings(interpolatedSampling, samplingStep, regionCacheSize, DEFAULT_RAFT_SPACING);
+    }
+
+    /**
+     * 从插件配置读取低频噪声的采样设置和木筏间距，无效值回退为默认值
+     */
+    public static GeneratorSettings fromConfig(FileConfiguration config, Logger logger) {
+        // exact 为逐列精确计算，interpolated 为粗网格双三次插值
+        String mode = config.getString("world-generation.sampling.mode", "interpolated");
+        boolean interpolated = !"exact".equalsIgnoreCase(mode);
+
+        int step = config.getInt("world-generation.sampling.step", DEFAULT_SAMPLING_STEP);
+        if (step < 2 || step > 16) {
+            logger.warning("无效的噪声采样步长: " + step + "，使用默认值 " + DEFAULT_SAMPLING_STEP);
+            step = DEFAULT_SAMPLING_STEP;
+        }
+
+        int cacheSize = Math.max(1, config.getInt("world-generation.sampling.region-cache-size", DEFAULT_REGION_CACHE_SIZE));
+        int spacing = Math.max(1, config.getInt("raft.spacing", DEFAULT_RAFT_SPACING));
+        return new GeneratorSettings(interpolated, step, cacheSize, spacing);
+    }
+
+    public boolean isInterpolatedSampling() {
+        return interpolatedSampling;
+    }
+
+    public int getSamplingStep() {
+        return samplingStep;
+    }
+
+    public int getRegionCacheSize() {
+        return regionCacheSize;
+    }
+
+    public int getRaftSpacing() {
+        return raftSpacing;
+    }
+}
\ No newline at end of file
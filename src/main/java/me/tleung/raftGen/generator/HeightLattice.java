@@ -0,0 +1,66 @@
+package me.tleung.raftGen.generator;
+
+/**
+ * 区块的粗粒度高度格点
+ * 每 4 格采样一次估算高度，并在区块四周多留一格边界，用于柱状结构平滑时查询相邻高度。
+ * 实例可通过 fill 重复使用，但不是线程安全的，应作为每个线程各自的临时缓冲区
+ */
+public final class HeightLattice {
+
+    public static final int STEP = 4;
+
+    // 区块内 16 / STEP 格，加上左右各一格边界以及最右侧的闭合点
+    private static final int SIZE = 16 / STEP + 3;
+
+    private final double[] values = new double[SIZE * SIZE];
+    private int originX;
+    private int originZ;
+
+    public HeightLattice() {
+    }
+
+    public HeightLattice(int chunkX, int chunkZ, NoiseSampler sampler) {
+        fill(chunkX, chunkZ, sampler);
+    }
+
+    /**
+     * 为指定区块重新采样，覆盖之前的内容
+     */
+    public HeightLattice fill(int chunkX, int chunkZ, NoiseSampler sampler) {
+        this.originX = (chunkX << 4) - STEP;
+        this.originZ = (chunkZ << 4) - STEP;
+
+        for (int i = 0; i < SIZE; i++) {
+            for (int j = 0; j < SIZE; j++) {
+                values[i * SIZE + j] = sampler.sample(originX + i * STEP, originZ + j * STEP);
+            }
+        }
+        return this;
+    }
+
+    /**
+     * 双线性插值得到任意位置的估算高度，超出格点范围时取边界值
+     */
+    public double sample(int worldX, int worldZ) {
+        double fx = clamp((worldX - originX) / (double) STEP);
+        double fz = clamp((worldZ - originZ) / (double) STEP);
+
+        int i0 = Math.min((int) fx, SIZE - 2);
+        int j0 = Math.min((int) fz, SIZE - 2);
+        double tx = fx - i0;
+        double tz = fz - j0;
+
+        double v00 = values[i0 * SIZE + j0];
+        double v10 = values[(i0 + 1) * SIZE + j0];
+        double v01 = values[i0 * SIZE + j0 + 1];
+        double v11 = values[(i0 + 1) * SIZE + j0 + 1];
+
+        double vx0 = v00 + tx * (v10 - v00);
+        double vx1 = v01 + tx * (v11 - v01);
+        return vx0 + tz * (vx1 - vx0);
+    }
+
+    private static double clamp(double index) {
+        return Math.max(0.0, Math.min(SIZE - 1, index));
+    }
+}
\ No newline at end of file
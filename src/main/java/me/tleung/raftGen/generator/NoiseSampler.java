@@ -0,0 +1,10 @@
+package me.tleung.raftGen.generator;
+
+/**
+ * 按世界坐标采样的二维噪声函数
+ */
+@FunctionalInterface
+public interface NoiseSampler {
+
+    double sample(int worldX, int worldZ);
+}
\ No newline at end of file
@@ -0,0 +1,122 @@
+package me.tleung.raftGen.generator;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 低频噪声层的区域缓存
+ * 以 128x128 方块为一个区域，缓存该区域的粗网格采样结果，相邻区块直接复用。
+ * 超出容量时淘汰最久未使用的区域，并统计命中与未命中次数
+ */
+public final class RegionNoiseCache {
+
+    public static final int REGION_SHIFT = 7;
+    public static final int REGION_SIZE = 1 << REGION_SHIFT;
+
+    private final int step;
+    private final Map<Key, CoarseNoiseGrid> regions;
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+
+    public RegionNoiseCache(int maxRegions, int step) {
+        this.step = step;
+        this.regions = new LinkedHashMap<>(64, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Key, CoarseNoiseGrid> eldest) {
+                return size() > maxRegions;
+            }
+        };
+    }
+
+    /**
+     * 返回按区域缓存的采样视图
+     * 视图会记住最近使用的区域，只应在单个线程内使用（例如一个区块的生成过程）
+     *
+     * @param seed   噪声层的种子，用于区分不同世界
+     * @param source 精确的噪声函数，仅在区域未命中时调用
+     */
+    public NoiseSampler view(long seed, NoiseSampler source) {
+        return new NoiseSampler() {
+            private int lastRegionX = Integer.MIN_VALUE;
+            private int lastRegionZ = Integer.MIN_VALUE;
+            private CoarseNoiseGrid lastGrid;
+
+            @Override
+            public double sample(int worldX, int worldZ) {
+                int regionX = worldX >> REGION_SHIFT;
+                int regionZ = worldZ >> REGION_SHIFT;
+                if (lastGrid == null || regionX != lastRegionX || regionZ != lastRegionZ) {
+                    lastGrid = region(seed, regionX, regionZ, source);
+                    lastRegionX = regionX;
+                    lastRegionZ = regionZ;
+                }
+                return lastGrid.sample(worldX, worldZ);
+            }
+        };
+    }
+
+    private CoarseNoiseGrid region(long seed, int regionX, int regionZ, NoiseSampler source) {
+        Key key = new Key(seed, regionX, regionZ);
+        synchronized (regions) {
+            CoarseNoiseGrid grid = regions.get(key);
+            if (grid != null) {
+                hits.incrementAndGet();
+                return grid;
+            }
+        }
+
+        // 在锁外计算，避免阻塞其他生成线程；并发未命中时以先写入者为准
+        misses.incrementAndGet();
+        int minX = regionX << REGION_SHIFT;
+        int minZ = regionZ << REGION_SHIFT;
+        CoarseNoiseGrid grid = new CoarseNoiseGrid(minX, minZ, minX + REGION_SIZE - 1, minZ + REGION_SIZE - 1, step, source);
+        synchronized (regions) {
+            CoarseNoiseGrid existing = regions.putIfAbsent(key, grid);
+            return existing != null ? existing : grid;
+        }
+    }
+
+    public int getStep() {
+        return step;
+    }
+
+    public long getHits() {
+        return hits.get();
+    }
+
+    public long getMisses() {
+        return misses.get();
+    }
+
+    public int size() {
+        synchronized (regions) {
+            return regions.size();
+        }
+    }
+
+    private static final class Key {
+        private final long seed;
+        private final int regionX;
+        private final int regionZ;
+
+        private Key(long seed, int regionX, int regionZ) {
+            this.seed = seed;
+            this.regionX = regionX;
+            this.regionZ = regionZ;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (!(o instanceof Key)) return false;
+            Key other = (Key) o;
+            return seed == other.seed && regionX == other.regionX && regionZ == other.regionZ;
+        }
+
+        @Override
+        public int hashCode() {
+            return (Long.hashCode(seed) * 31 + regionX) * 31 + regionZ;
+        }
+    }
+}
\ No newline at end of file
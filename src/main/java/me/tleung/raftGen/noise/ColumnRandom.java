@@ -0,0 +1,42 @@
+package me.tleung.raftGen.noise;
+
+import java.util.Random;
+
+/**
+ * 按 (世界种子, 方块列坐标, 阶段) 派生的确定性随机数
+ * 每一列在使用前重新设定状态，生成结果只取决于种子与坐标，与区块生成顺序和所在线程无关。
+ * 实例本身是可变的，应按线程复用而不是跨线程共享
+ */
+public final class ColumnRandom extends Random {
+
+    private long state;
+
+    public ColumnRandom() {
+        super(0L);
+    }
+
+    /**
+     * 把状态重置到指定列，salt 用于区分同一列上的不同生成阶段
+     */
+    public ColumnRandom reset(long worldSeed, int worldX, int worldZ, long salt) {
+        this.state = GradientNoise.hash(worldSeed + salt, worldX, worldZ);
+        return this;
+    }
+
+    @Override
+    public void setSeed(long seed) {
+        // 父类构造器也会调用此方法
+        this.state = seed;
+    }
+
+    @Override
+    protected int next(int bits) {
+        // SplitMix64 序列
+        state += 0x9E3779B97F4A7C15L;
+        long z = state;
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        z ^= z >>> 31;
+        return (int) (z >>> (64 - bits));
+    }
+}
\ No newline at end of file
@@ -0,0 +1,109 @@
+package me.tleung.raftGen.noise;
+
+/**
+ * 无状态的整数哈希梯度噪声
+ * 网格点梯度由 (种子, x, z) 的整数哈希和固定排列表决定，采样过程不分配任何对象，可在任意线程调用
+ */
+public final class GradientNoise {
+
+    private static final int TABLE_SIZE = 256;
+    private static final int TABLE_MASK = TABLE_SIZE - 1;
+
+    // 固定的排列表与梯度表，与世界种子无关
+    private static final int[] PERMUTATION = new int[TABLE_SIZE];
+    private static final double[] GRADIENTS = new double[TABLE_SIZE];
+
+    static {
+        for (int i = 0; i < TABLE_SIZE; i++) {
+            PERMUTATION[i] = i;
+            GRADIENTS[i] = i / (double) TABLE_MASK * 2.0 - 1.0;
+        }
+
+        // 使用固定种子的 Fisher-Yates 洗牌，保证不同服务器上结果一致
+        long state = 0x5DEECE66DL;
+        for (int i = TABLE_MASK; i > 0; i--) {
+            state = mix(state + 0x9E3779B97F4A7C15L);
+            int j = (int) Long.remainderUnsigned(state, i + 1);
+            int tmp = PERMUTATION[i];
+            PERMUTATION[i] = PERMUTATION[j];
+            PERMUTATION[j] = tmp;
+        }
+    }
+
+    private GradientNoise() {
+    }
+
+    /**
+     * 网格点的整数哈希
+     */
+    public static long hash(long seed, int x, int z) {
+        long h = seed;
+        h ^= x * 0x9E3779B97F4A7C15L;
+        h ^= z * 0xC2B2AE3D27D4EB4FL;
+        return mix(h);
+    }
+
+    /**
+     * 网格点上的梯度，范围 [-1, 1]
+     */
+    public static double gradient(long seed, int x, int z) {
+        return GRADIENTS[PERMUTATION[(int) hash(seed, x, z) & TABLE_MASK]];
+    }
+
+    /**
+     * 单层平滑噪声，保持原有的五次插值与梯度形式
+     */
+    public static double sample(int x, int z, double frequency, long seed) {
+        double xf = x * frequency;
+        double zf = z * frequency;
+
+        // 网格点
+        int x0 = (int) Math.floor(xf);
+        int x1 = x0 + 1;
+        int z0 = (int) Math.floor(zf);
+        int z1 = z0 + 1;
+
+        // 小数部分
+        double xs = xf - x0;
+        double zs = zf - z0;
+
+        // 五次多项式曲线
+        double fadeX = xs * xs * xs * (xs * (xs * 6 - 15) + 10);
+        double fadeZ = zs * zs * zs * (zs * (zs * 6 - 15) + 10);
+
+        double n00 = gradient(seed, x0, z0) * xs;
+        double n10 = gradient(seed, x1, z0) * (xs - 1);
+        double n01 = gradient(seed, x0, z1) * xs;
+        double n11 = gradient(seed, x1, z1) * (xs - 1);
+
+        double nx0 = n00 + fadeX * (n10 - n00);
+        double nx1 = n01 + fadeX * (n11 - n01);
+
+        return nx0 + fadeZ * (nx1 - nx0);
+    }
+
+    /**
+     * 分形布朗运动，每层使用 seed + i * 1000 作为种子
+     */
+    public static double fbm(int x, int z, double frequency, int octaves, double lacunarity, double gain, long seed) {
+        double value = 0.0;
+        double amplitude = 1.0;
+        double maxAmplitude = 0.0;
+
+        for (int i = 0; i < octaves; i++) {
+            value += sample(x, z, frequency, seed + i * 1000L) * amplitude;
+            maxAmplitude += amplitude;
+            frequency *= lacunarity;
+            amplitude *= gain;
+        }
+
+        return Math.max(-1.0, Math.min(1.0, value / maxAmplitude));
+    }
+
+    // SplitMix64 的最终混合步骤
+    private static long mix(long h) {
+        h = (h ^ (h >>> 30)) * 0xBF58476D1CE4E5B9L;
+        h = (h ^ (h >>> 27)) * 0x94D049BB133111EBL;
+        return h ^ (h >>> 31);
+    }
+}
\ No newline at end of file